@@ -0,0 +1,138 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The active {@link AtomicDisjunction}s of the given clause loop of the
+ * {@link PropositionalProver}, i.e. those already selected and resolved
+ * against each other. They are indexed by the literals they contain, which
+ * serves for finding resolution partners and subsumed disjunctions, and
+ * separately by their smallest literal, which serves for finding subsuming
+ * disjunctions, both without comparing against every active one.
+ * Disjunctions evicted by backward subsumption are only flagged and dropped
+ * from the occurrence lists the next time those are traversed.
+ * <p>
+ * The set only changes when a disjunction is activated. In between,
+ * {@link #isSubsumed(AtomicDisjunction)} and the lists returned by
+ * {@link #containing(int)} may be read by several threads without locking.
+ */
+public class ActiveSet {
+
+  private List<List<AtomicDisjunction>> occurrences = new ArrayList<List<AtomicDisjunction>>();
+  /**
+   * Active disjunctions by their smallest literal
+   */
+  private List<List<AtomicDisjunction>> firstLiterals = new ArrayList<List<AtomicDisjunction>>();
+
+  private int size = 0;
+
+  public void add(AtomicDisjunction disjunction) {
+    for (int literal : disjunction.literals)
+      list(occurrences, literal).add(disjunction);
+    if (disjunction.literals.length > 0)
+      list(firstLiterals, disjunction.literals[0]).add(disjunction);
+    size++;
+  }
+
+  /**
+   * @param literal
+   * @return The active {@link AtomicDisjunction}s containing the given
+   *         literal. Disjunctions that get subsumed while the returned list is
+   *         traversed are flagged but not removed.
+   */
+  public List<AtomicDisjunction> containing(int literal) {
+    return purge(list(occurrences, literal));
+  }
+
+  /**
+   * Checks if one of the active {@link AtomicDisjunction}s subsumes the given
+   * one. Every subsuming disjunction has to contain the smallest of its own
+   * literals, so only disjunctions whose smallest literal is a literal of the
+   * given disjunction are compared, looked up by their smallest literal. The
+   * set is not modified.
+   *
+   * @param disjunction
+   * @return <code>true</code> if the given {@link AtomicDisjunction} is
+   *         subsumed
+   */
+  public boolean isSubsumed(AtomicDisjunction disjunction) {
+    for (int literal : disjunction.literals) {
+      if (literal >= firstLiterals.size())
+        continue;
+      List<AtomicDisjunction> candidates = firstLiterals.get(literal);
+      for (int i = 0; i < candidates.size(); i++) {
+        AtomicDisjunction candidate = candidates.get(i);
+        if (!candidate.subsumed && candidate.subsumes(disjunction))
+          return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Flags all active {@link AtomicDisjunction}s that are subsumed by the given
+   * one as {@link AtomicDisjunction#subsumed}. Only the disjunctions of the
+   * shortest occurrence list of the given disjunction's literals are
+   * compared, since every subsumed disjunction has to be in all of them.
+   *
+   * @param disjunction
+   * @return The subsumed {@link AtomicDisjunction}s
+   */
+  public List<AtomicDisjunction> removeSubsumed(AtomicDisjunction disjunction) {
+    List<AtomicDisjunction> shortest = null;
+    for (int literal : disjunction.literals) {
+      if (literal >= occurrences.size())
+        return Collections.emptyList();
+      List<AtomicDisjunction> candidates = occurrences.get(literal);
+      if (shortest == null || candidates.size() < shortest.size())
+        shortest = candidates;
+    }
+    if (shortest == null)
+      return Collections.emptyList();
+    List<AtomicDisjunction> removed = new ArrayList<AtomicDisjunction>();
+    for (AtomicDisjunction candidate : purge(shortest)) {
+      if (disjunction.subsumes(candidate)) {
+        candidate.subsumed = true;
+        removed.add(candidate);
+      }
+    }
+    int purged = -1;
+    for (AtomicDisjunction candidate : removed) {
+      // consecutive removed disjunctions often share their smallest literal
+      if (candidate.literals[0] != purged) {
+        purged = candidate.literals[0];
+        purge(firstLiterals.get(purged));
+      }
+    }
+    size -= removed.size();
+    return removed;
+  }
+
+  /**
+   * @return Number of active {@link AtomicDisjunction}s
+   */
+  public int size() {
+    return size;
+  }
+
+  private List<AtomicDisjunction> purge(List<AtomicDisjunction> disjunctions) {
+    int size = disjunctions.size();
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      AtomicDisjunction disjunction = disjunctions.get(i);
+      if (!disjunction.subsumed)
+        disjunctions.set(j++, disjunction);
+    }
+    disjunctions.subList(j, size).clear();
+    return disjunctions;
+  }
+
+  private static List<AtomicDisjunction> list(
+      List<List<AtomicDisjunction>> index, int literal) {
+    while (index.size() <= literal)
+      index.add(new ArrayList<AtomicDisjunction>());
+    return index.get(literal);
+  }
+}
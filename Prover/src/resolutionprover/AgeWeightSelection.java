@@ -0,0 +1,101 @@
+package resolutionprover;
+
+import java.util.Comparator;
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * {@link ClauseSelection} alternating between the oldest and the lightest
+ * passive {@link AtomicDisjunction}. Out of every
+ * <code>ageRatio + weightRatio</code> selections, <code>ageRatio</code> take
+ * the oldest disjunction, so light disjunctions are preferred without
+ * starving heavy ones. The weight of a disjunction is the number of symbols
+ * of its literals, ties are broken by age, so the order does not depend on
+ * the internals of the queues.
+ * <p>
+ * Every disjunction is kept in both queues, a disjunction selected from one
+ * of them is skipped when it shows up in the other.
+ */
+public class AgeWeightSelection implements ClauseSelection {
+
+  private static final Comparator<AtomicDisjunction> BY_WEIGHT = new Comparator<AtomicDisjunction>() {
+    @Override
+    public int compare(AtomicDisjunction d1, AtomicDisjunction d2) {
+      if (d1.weight != d2.weight)
+        return d1.weight < d2.weight ? -1 : 1;
+      if (d1.age != d2.age)
+        return d1.age < d2.age ? -1 : 1;
+      return 0;
+    }
+  };
+
+  private final int ageRatio;
+  private final int weightRatio;
+
+  private Queue<AtomicDisjunction> byAge = new ArrayDeque<AtomicDisjunction>();
+  private PriorityQueue<AtomicDisjunction> byWeight = new PriorityQueue<AtomicDisjunction>(
+      11, BY_WEIGHT);
+
+  private int clock = 0;
+  private int picks = 0;
+  private int size = 0;
+
+  /**
+   * @param ageRatio
+   *          number of selections by age
+   * @param weightRatio
+   *          number of selections by weight
+   */
+  public AgeWeightSelection(int ageRatio, int weightRatio) {
+    if (ageRatio < 0 || weightRatio < 0 || ageRatio + weightRatio == 0)
+      throw new IllegalArgumentException(String.format(
+          "Invalid age to weight ratio %d:%d", ageRatio, weightRatio));
+    this.ageRatio = ageRatio;
+    this.weightRatio = weightRatio;
+  }
+
+  @Override
+  public void add(AtomicDisjunction disjunction) {
+    disjunction.age = clock++;
+    disjunction.weight = disjunction.symbolCount();
+    disjunction.selected = false;
+    if (ageRatio > 0)
+      byAge.add(disjunction);
+    if (weightRatio > 0)
+      byWeight.add(disjunction);
+    size++;
+  }
+
+  @Override
+  public AtomicDisjunction poll() {
+    if (size == 0)
+      return null;
+    Queue<AtomicDisjunction> queue = picks++ % (ageRatio + weightRatio) < ageRatio ? byAge
+        : byWeight;
+    AtomicDisjunction disjunction;
+    do {
+      disjunction = queue.poll();
+    } while (disjunction.selected);
+    disjunction.selected = true;
+    size--;
+    return disjunction;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    byAge.clear();
+    byWeight.clear();
+    size = 0;
+  }
+}
@@ -0,0 +1,196 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tptp.Atomic;
+import tptp.BooleanAtomic;
+import tptp.Formula;
+import tptp.FormulaFactory;
+import tptp.Kind;
+import tptp.Negation;
+import tptp.Term;
+
+/**
+ * Maps every distinct atom to an int id, so the resolution phase can work on
+ * int literals instead of {@link Formula}e. A literal is the id of its atom
+ * shifted left by one, the low bit being set for negated atoms. Hence the
+ * complement of a literal is <code>literal ^ 1</code> and a sorted array of
+ * literals keeps complementary literals next to each other.
+ * <p>
+ * A table may extend a parent table, which keeps the ids of its atoms and is
+ * only read. Discarding the extending table forgets the atoms added to it.
+ */
+public class AtomTable {
+
+  private final AtomTable parent;
+  /**
+   * Number of atoms of the parent, the first id assigned by this table
+   */
+  private final int base;
+  private Map<Formula, Integer> ids = new HashMap<Formula, Integer>();
+  private List<Formula> atoms = new ArrayList<Formula>();
+  private int[] weights = new int[16];
+
+  public AtomTable() {
+    this(null);
+  }
+
+  /**
+   * Creates a table extending the given one. The parent must not be changed
+   * while this table is used, but may be shared by several extending tables.
+   *
+   * @param parent
+   *          can be null
+   */
+  public AtomTable(AtomTable parent) {
+    this.parent = parent;
+    this.base = parent == null ? 0 : parent.size();
+  }
+
+  /**
+   * Returns the id of the given atom, assigning a new one if the atom has not
+   * been seen before.
+   *
+   * @param atom
+   * @return Id of the atom
+   */
+  public int id(Formula atom) {
+    int known = find(atom);
+    if (known >= 0)
+      return known;
+    int id = base + atoms.size();
+    ids.put(atom, id);
+    atoms.add(atom);
+    if (id - base == weights.length)
+      weights = Arrays.copyOf(weights, 2 * (id - base));
+    weights[id - base] = symbolCount(atom);
+    return id;
+  }
+
+  /**
+   * @param literal
+   * @return Number of predicate and function symbols of the atom of the given
+   *         literal, 1 for atoms not known to this table
+   */
+  public int weight(int literal) {
+    int atom = atom(literal);
+    if (atom < base)
+      return parent.weight(literal);
+    return atom - base < atoms.size() ? weights[atom - base] : 1;
+  }
+
+  /**
+   * Encodes an atom or a negated atom as literal.
+   *
+   * @param formula
+   * @return Literal representing the given {@link Formula}
+   */
+  public int literal(Formula formula) {
+    if (formula.getKind() == Kind.Negation)
+      return negate(literal(((Negation) formula).getArgument()));
+    return positive(id(formula));
+  }
+
+  /**
+   * Decodes the given literal. Negative literals are decoded to the shared
+   * complement of their atom.
+   *
+   * @param literal
+   * @return The {@link Formula} represented by the literal
+   */
+  public Formula formula(int literal) {
+    if (atom(literal) < base)
+      return parent.formula(literal);
+    Formula atom = atoms.get(atom(literal) - base);
+    return isNegative(literal) ? FormulaFactory.complement(atom) : atom;
+  }
+
+  /**
+   * @return Number of distinct atoms seen so far
+   */
+  public int size() {
+    return base + atoms.size();
+  }
+
+  /**
+   * Creates the {@link AtomicDisjunction} for a {@link Disjunction} that
+   * contains atoms and negated atoms only. {@link BooleanAtomic#FALSE} is
+   * dropped, so a false {@link Disjunction} becomes the empty clause. The new
+   * clause takes over rule and origin of the given {@link Disjunction}.
+   *
+   * @param disjunction
+   * @return The encoded {@link Disjunction}
+   */
+  public AtomicDisjunction encode(Disjunction disjunction) {
+    int[] literals = new int[disjunction.formulae.size()];
+    int size = 0;
+    for (Formula formula : disjunction.formulae) {
+      if (formula != BooleanAtomic.FALSE)
+        literals[size++] = literal(formula);
+    }
+    Arrays.sort(literals, 0, size);
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      if (distinct == 0 || literals[distinct - 1] != literals[i])
+        literals[distinct++] = literals[i];
+    }
+    if (distinct < literals.length)
+      literals = Arrays.copyOf(literals, distinct);
+    AtomicDisjunction encoded = new AtomicDisjunction(this, literals);
+    encoded.rule = disjunction.rule;
+    encoded.origin = disjunction.origin;
+    return encoded;
+  }
+
+  /**
+   * @param atom
+   * @return Id of the given atom or -1 if neither this table nor its parents
+   *         know it
+   */
+  private int find(Formula atom) {
+    Integer id = ids.get(atom);
+    if (id != null)
+      return id;
+    return parent == null ? -1 : parent.find(atom);
+  }
+
+  private static int symbolCount(Formula atom) {
+    int count = 1;
+    if (atom.getKind() == Kind.Atomic && ((Atomic) atom).getArguments() != null)
+      for (Term argument : ((Atomic) atom).getArguments())
+        count += symbolCount(argument);
+    return count;
+  }
+
+  private static int symbolCount(Term term) {
+    int count = 1;
+    if (term.getArguments() != null)
+      for (Term argument : term.getArguments())
+        count += symbolCount(argument);
+    return count;
+  }
+
+  public static int positive(int atom) {
+    return atom << 1;
+  }
+
+  public static int negative(int atom) {
+    return (atom << 1) | 1;
+  }
+
+  public static int atom(int literal) {
+    return literal >>> 1;
+  }
+
+  public static boolean isNegative(int literal) {
+    return (literal & 1) != 0;
+  }
+
+  public static int negate(int literal) {
+    return literal ^ 1;
+  }
+}
@@ -0,0 +1,252 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import tptp.Formula;
+
+/**
+ * A disjunction containing atoms and negated atoms only, encoded as a sorted
+ * array of literals of an {@link AtomTable}. This is the representation the
+ * resolution phase of the {@link PropositionalProver} works on.
+ */
+public class AtomicDisjunction extends TraceEntry implements
+    Comparable<AtomicDisjunction> {
+
+  /**
+   * Literals of this disjunction in ascending order without duplicates
+   */
+  public final int[] literals;
+
+  /**
+   * Set once a stronger disjunction has been derived, a subsumed disjunction
+   * is not used for resolution anymore
+   */
+  public boolean subsumed = false;
+
+  /**
+   * Position in which this disjunction became passive, assigned by the
+   * {@link ClauseSelection}
+   */
+  public int age;
+
+  /**
+   * Weight used for selecting this disjunction, assigned by the
+   * {@link ClauseSelection}
+   */
+  public int weight;
+
+  /**
+   * Set by the {@link ClauseSelection} once this disjunction was selected
+   */
+  public boolean selected = false;
+
+  protected final AtomTable atomTable;
+  private final boolean tautology;
+  private final int hashCode;
+
+  /**
+   * @param atomTable
+   *          {@link AtomTable} the literals belong to
+   * @param literals
+   *          literals sorted in ascending order without duplicates
+   */
+  public AtomicDisjunction(AtomTable atomTable, int[] literals) {
+    this.atomTable = atomTable;
+    this.literals = literals;
+    this.hashCode = Arrays.hashCode(literals);
+    boolean tautology = false;
+    // complementary literals are neighbours in the sorted array
+    for (int i = 1; i < literals.length && !tautology; i++)
+      tautology = literals[i] == AtomTable.negate(literals[i - 1]);
+    this.tautology = tautology;
+  }
+
+  /**
+   * For subclasses that already know whether the literals are complementary.
+   *
+   * @param atomTable
+   *          {@link AtomTable} the literals belong to
+   * @param literals
+   *          literals sorted in ascending order without duplicates
+   * @param tautology
+   *          whether the literals contain an atom and its negation
+   */
+  protected AtomicDisjunction(AtomTable atomTable, int[] literals,
+      boolean tautology) {
+    this.atomTable = atomTable;
+    this.literals = literals;
+    this.hashCode = Arrays.hashCode(literals);
+    this.tautology = tautology;
+  }
+
+  /**
+   * Copies the literals of the given {@link AtomicDisjunction}, but neither
+   * its place in a trace nor its state in a proof.
+   *
+   * @param atomTable
+   *          {@link AtomTable} the literals belong to, the one of the given
+   *          disjunction or one extending it
+   * @param disjunction
+   */
+  public AtomicDisjunction(AtomTable atomTable, AtomicDisjunction disjunction) {
+    this.atomTable = atomTable;
+    this.literals = disjunction.literals;
+    this.hashCode = disjunction.hashCode;
+    this.tautology = disjunction.tautology;
+  }
+
+  public int size() {
+    return literals.length;
+  }
+
+  public boolean isEmpty() {
+    return literals.length == 0;
+  }
+
+  public boolean isTautology() {
+    return tautology;
+  }
+
+  public boolean contains(int literal) {
+    return Arrays.binarySearch(literals, literal) >= 0;
+  }
+
+  /**
+   * @return Number of predicate and function symbols of all literals
+   */
+  public int symbolCount() {
+    int count = 0;
+    for (int literal : literals)
+      count += atomTable.weight(literal);
+    return count;
+  }
+
+  /**
+   * Checks if every literal of this disjunction is contained in the given
+   * one, by walking both sorted literal arrays.
+   *
+   * @param other
+   * @return <code>true</code> if this {@link AtomicDisjunction} subsumes the
+   *         given one
+   */
+  public boolean subsumes(AtomicDisjunction other) {
+    int[] first = literals;
+    int[] second = other.literals;
+    if (first.length > second.length)
+      return false;
+    int j = 0;
+    for (int i = 0; i < first.length; i++) {
+      while (j < second.length && second[j] < first[i])
+        j++;
+      if (j == second.length || second[j] != first[i])
+        return false;
+      j++;
+    }
+    return true;
+  }
+
+  /**
+   * Applies the resolution rule on this and the given
+   * {@link AtomicDisjunction} by merging both literal arrays, leaving out the
+   * given literal of this disjunction and its complement in the other one.
+   *
+   * @param other
+   *          {@link AtomicDisjunction} containing the complement of literal
+   * @param literal
+   *          literal of this {@link AtomicDisjunction}
+   * @return The resolvent
+   */
+  public AtomicDisjunction resolve(AtomicDisjunction other, int literal) {
+    AtomicDisjunction resolvent = new AtomicDisjunction(atomTable, merge(other,
+        literal));
+    resolvent.rule = Rule.RESOLUTION;
+    resolvent.origin.add(this);
+    resolvent.origin.add(other);
+    return resolvent;
+  }
+
+  /**
+   * Merges the literal arrays of this and the given
+   * {@link AtomicDisjunction}, leaving out the given literal of this
+   * disjunction and its complement in the other one.
+   *
+   * @param other
+   *          {@link AtomicDisjunction} containing the complement of literal
+   * @param literal
+   *          literal of this {@link AtomicDisjunction}
+   * @return The literals of the resolvent in ascending order
+   */
+  protected int[] merge(AtomicDisjunction other, int literal) {
+    int complement = AtomTable.negate(literal);
+    int[] first = literals;
+    int[] second = other.literals;
+    int[] merged = new int[first.length + second.length - 2];
+    int i = 0, j = 0, size = 0;
+    while (i < first.length || j < second.length) {
+      int next;
+      if (j == second.length || (i < first.length && first[i] <= second[j])) {
+        next = first[i++];
+        if (next == literal)
+          continue;
+      } else {
+        next = second[j++];
+        if (next == complement)
+          continue;
+      }
+      if (size == 0 || merged[size - 1] != next)
+        merged[size++] = next;
+    }
+    if (size < merged.length)
+      merged = Arrays.copyOf(merged, size);
+    return merged;
+  }
+
+  /**
+   * @return The literals of this disjunction as {@link Formula}e in
+   *         ascending order
+   */
+  public List<Formula> getFormulae() {
+    List<Formula> formulae = new ArrayList<Formula>(literals.length);
+    for (int literal : literals)
+      formulae.add(atomTable.formula(literal));
+    return formulae;
+  }
+
+  @Override
+  public String literalsToString() {
+    if (tautology)
+      return "[$true]";
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < literals.length; i++) {
+      if (i > 0)
+        builder.append(", ");
+      builder.append(atomTable.formula(literals[i]));
+    }
+    return builder.append("]").toString();
+  }
+
+  @Override
+  public int compareTo(AtomicDisjunction o) {
+    return literals.length - o.literals.length;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj)
+      return true;
+    if (obj == null)
+      return false;
+    if (!(obj instanceof AtomicDisjunction))
+      return false;
+    AtomicDisjunction other = (AtomicDisjunction) obj;
+    return hashCode == other.hashCode
+        && Arrays.equals(literals, other.literals);
+  }
+}
@@ -0,0 +1,17 @@
+package resolutionprover;
+
+/**
+ * Procedure the {@link PropositionalProver} uses to refute the disjunctions
+ * containing atoms only.
+ */
+public enum Backend {
+
+	RESOLUTION("resolution"),
+	CDCL("conflict driven clause learning");
+
+	public final String humanReadable;
+
+	private Backend(String humanReadable) {
+		this.humanReadable = humanReadable;
+	}
+}
@@ -0,0 +1,134 @@
+package resolutionprover;
+
+/**
+ * An {@link AtomicDisjunction} that additionally stores its literals as a
+ * pair of bitsets over the atom ids of its {@link AtomTable}, one for the
+ * positive and one for the negative literals. Resolution and subsumption
+ * between two such disjunctions are done word by word, which pays off for
+ * problems with few atoms occurring in many disjunctions. All bitsets of one
+ * proof have the same number of words.
+ */
+public class BitsetDisjunction extends AtomicDisjunction {
+
+  private final long[] positive;
+  private final long[] negative;
+
+  /**
+   * @param atomTable
+   *          {@link AtomTable} the literals belong to
+   * @param literals
+   *          literals sorted in ascending order without duplicates
+   * @param words
+   *          number of words of the bitsets, large enough for all atoms of
+   *          the {@link AtomTable}
+   */
+  public BitsetDisjunction(AtomTable atomTable, int[] literals, int words) {
+    super(atomTable, literals);
+    positive = new long[words];
+    negative = new long[words];
+    for (int literal : literals) {
+      int atom = AtomTable.atom(literal);
+      long[] bits = AtomTable.isNegative(literal) ? negative : positive;
+      bits[atom >>> 6] |= 1L << atom;
+    }
+  }
+
+  private BitsetDisjunction(AtomTable atomTable, int[] literals,
+      boolean tautology, long[] positive, long[] negative) {
+    super(atomTable, literals, tautology);
+    this.positive = positive;
+    this.negative = negative;
+  }
+
+  /**
+   * Creates a {@link BitsetDisjunction} with the literals of the given
+   * {@link AtomicDisjunction}, taking over its place in the trace.
+   *
+   * @param disjunction
+   * @param words
+   *          number of words of the bitsets
+   * @return The converted disjunction
+   */
+  public static BitsetDisjunction of(AtomicDisjunction disjunction, int words) {
+    BitsetDisjunction converted = new BitsetDisjunction(disjunction.atomTable,
+        disjunction.literals, words);
+    converted.index = disjunction.index;
+    converted.rule = disjunction.rule;
+    converted.origin = disjunction.origin;
+    return converted;
+  }
+
+  /**
+   * Checks if every literal of this disjunction is contained in the given
+   * one. Against another {@link BitsetDisjunction} no bit of this one may be
+   * missing in the other one.
+   */
+  @Override
+  public boolean subsumes(AtomicDisjunction other) {
+    if (!(other instanceof BitsetDisjunction))
+      return super.subsumes(other);
+    if (literals.length > other.literals.length)
+      return false;
+    long[] otherPositive = ((BitsetDisjunction) other).positive;
+    long[] otherNegative = ((BitsetDisjunction) other).negative;
+    for (int i = 0; i < positive.length; i++) {
+      if ((positive[i] & ~otherPositive[i]) != 0
+          || (negative[i] & ~otherNegative[i]) != 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Applies the resolution rule by uniting the bitsets of both disjunctions
+   * and clearing the atom resolved upon. The literal array of the resolvent
+   * is read off the united bitsets in ascending order, and it is a tautology
+   * if some atom is set in both of them.
+   */
+  @Override
+  public AtomicDisjunction resolve(AtomicDisjunction other, int literal) {
+    if (!(other instanceof BitsetDisjunction))
+      return super.resolve(other, literal);
+    long[] otherPositive = ((BitsetDisjunction) other).positive;
+    long[] otherNegative = ((BitsetDisjunction) other).negative;
+    int words = positive.length;
+    long[] resolventPositive = new long[words];
+    long[] resolventNegative = new long[words];
+    int atom = AtomTable.atom(literal);
+    long mask = ~(1L << atom);
+    int size = 0;
+    boolean tautology = false;
+    for (int i = 0; i < words; i++) {
+      long p = positive[i] | otherPositive[i];
+      long n = negative[i] | otherNegative[i];
+      if (i == atom >>> 6) {
+        p &= mask;
+        n &= mask;
+      }
+      resolventPositive[i] = p;
+      resolventNegative[i] = n;
+      size += Long.bitCount(p) + Long.bitCount(n);
+      tautology |= (p & n) != 0;
+    }
+    int[] literals = new int[size];
+    int k = 0;
+    for (int i = 0; i < words; i++) {
+      long p = resolventPositive[i];
+      long n = resolventNegative[i];
+      for (long bits = p | n; bits != 0; bits &= bits - 1) {
+        long bit = bits & -bits;
+        int next = i << 6 | Long.numberOfTrailingZeros(bit);
+        if ((p & bit) != 0)
+          literals[k++] = AtomTable.positive(next);
+        if ((n & bit) != 0)
+          literals[k++] = AtomTable.negative(next);
+      }
+    }
+    AtomicDisjunction resolvent = new BitsetDisjunction(atomTable, literals,
+        tautology, resolventPositive, resolventNegative);
+    resolvent.rule = Rule.RESOLUTION;
+    resolvent.origin.add(this);
+    resolvent.origin.add(other);
+    return resolvent;
+  }
+}
@@ -0,0 +1,32 @@
+package resolutionprover;
+
+/**
+ * Policy deciding which passive {@link AtomicDisjunction} the given clause
+ * loop of the {@link PropositionalProver} selects next.
+ */
+public interface ClauseSelection {
+
+  /**
+   * Makes the given {@link AtomicDisjunction} passive.
+   *
+   * @param disjunction
+   */
+  void add(AtomicDisjunction disjunction);
+
+  /**
+   * Removes the next {@link AtomicDisjunction} to select.
+   *
+   * @return The selected {@link AtomicDisjunction} or <code>null</code> if
+   *         there is no passive one
+   */
+  AtomicDisjunction poll();
+
+  boolean isEmpty();
+
+  /**
+   * @return Number of passive {@link AtomicDisjunction}s
+   */
+  int size();
+
+  void clear();
+}
@@ -0,0 +1,17 @@
+package resolutionprover;
+
+/**
+ * {@link Clausifier} the {@link PropositionalProver} uses to obtain
+ * disjunctions containing atoms only.
+ */
+public enum Clausification {
+
+	EXPANSION("alpha/beta expansion"),
+	DEFINITIONAL("definitional clausification");
+
+	public final String humanReadable;
+
+	private Clausification(String humanReadable) {
+		this.humanReadable = humanReadable;
+	}
+}
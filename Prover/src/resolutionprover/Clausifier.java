@@ -0,0 +1,28 @@
+package resolutionprover;
+
+import java.util.Collection;
+import java.util.List;
+
+import tptp.Atomic;
+
+/**
+ * Transforms a {@link Disjunction} of arbitrary propositional formulae into
+ * {@link Disjunction}s containing {@link Atomic}s and negated {@link Atomic}s
+ * only.
+ */
+public interface Clausifier {
+
+  /**
+   * @param disjunction
+   * @return {@link Collection} of {@link Disjunction}s containing
+   *         {@link Atomic}s only. If a false {@link Disjunction} results, only
+   *         this one is returned.
+   */
+  Collection<Disjunction> expand(Disjunction disjunction);
+
+  /**
+   * @return The {@link Disjunction}s derived by the last call of
+   *         {@link #expand(Disjunction)}
+   */
+  List<Disjunction> getTrace();
+}
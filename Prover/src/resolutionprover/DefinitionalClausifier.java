@@ -0,0 +1,336 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import tptp.Atomic;
+import tptp.BooleanAtomic;
+import tptp.Formula;
+import tptp.FormulaFactory;
+import tptp.Kind;
+import tptp.Negation;
+import tptp.tptp_tester;
+
+/**
+ * Structural clausification introducing fresh definition atoms. Alpha rules
+ * are only applied at the top of a formula, every alpha formula nested in a
+ * beta formula is replaced by a definition atom <code>d</code> and only the
+ * implication <code>d => formula</code> is added (or
+ * <code>~d => ~formula</code>, if the formula occurs negated), so the
+ * resulting disjunctions stay linear in the size of the formulae instead of
+ * multiplying the surrounding disjunction for every alpha rule.
+ * <p>
+ * An instance keeps its definitions between calls of
+ * {@link #expand(Disjunction)}, so repeated subformulae are defined once per
+ * instance. The {@link PropositionalProver} expands every input disjunction
+ * by its own instance, numbered so that the definition atoms do not clash,
+ * and several threads may do so at once. Afterwards it passes the instances
+ * to {@link #share(Collection, Definitions)} in the order of the input
+ * disjunctions, which renames their definitions to those of the whole
+ * problem and drops the definitions made before. So every subformula is
+ * defined once per problem, and the clauses do not depend on the order the
+ * disjunctions were expanded in. Instances are not thread-safe.
+ */
+public class DefinitionalClausifier implements Clausifier {
+
+  private static final String DEFINITION_PREFIX = "$def";
+
+  /**
+   * Prefix of the names of the definition atoms introduced by this instance
+   */
+  private final String prefix;
+  /**
+   * Definition atoms of the formulae renamed so far, negations are stripped
+   * from the formulae
+   */
+  private Map<Formula, Definition> definitions = new LinkedHashMap<Formula, Definition>();
+  private List<Disjunction> trace = new LinkedList<Disjunction>();
+  private Set<Disjunction> clauses = new HashSet<Disjunction>();
+  private Disjunction origin;
+  private Disjunction falseDisjunction;
+
+  public DefinitionalClausifier() {
+    this.prefix = DEFINITION_PREFIX;
+  }
+
+  /**
+   * Creates a {@link DefinitionalClausifier} whose definition atoms do not
+   * clash with those of instances created with another number.
+   *
+   * @param number
+   */
+  public DefinitionalClausifier(int number) {
+    this.prefix = DEFINITION_PREFIX + number + "_";
+  }
+
+  /**
+   * Definition atoms shared by all disjunctions of a problem, keyed by the
+   * canonical formula they define
+   */
+  static class Definitions {
+    private final String prefix;
+    private final Map<Formula, Atomic> atoms = new HashMap<Formula, Atomic>();
+    private final Set<Disjunction> clauses = new HashSet<Disjunction>();
+
+    /**
+     * @param number
+     *          number distinguishing the atoms from those of other problems
+     *          sharing an {@link AtomTable}
+     */
+    Definitions(int number) {
+      this.prefix = DEFINITION_PREFIX + number + "_";
+    }
+  }
+
+  private static class Definition {
+    final Atomic atom;
+    boolean positive = false;
+    boolean negative = false;
+
+    Definition(Atomic atom) {
+      this.atom = atom;
+    }
+  }
+
+  @Override
+  public Collection<Disjunction> expand(Disjunction disjunction) {
+    trace.clear();
+    clauses.clear();
+    origin = disjunction;
+    falseDisjunction = null;
+
+    List<Formula> literals = new ArrayList<Formula>();
+    for (Formula formula : disjunction.formulae)
+      collectLiterals(formula, literals);
+    addClause(literals, Rule.CLAUSIFICATION);
+
+    if (falseDisjunction != null)
+      return Collections.singleton(falseDisjunction);
+    return new ArrayList<Disjunction>(clauses);
+  }
+
+  @Override
+  public List<Disjunction> getTrace() {
+    return trace;
+  }
+
+  /**
+   * Renames the definition atoms used by the last call of
+   * {@link #expand(Disjunction)} to those of the given problem-wide
+   * {@link Definitions}, adding the formulae not defined there yet. Definition
+   * disjunctions the problem already contains are dropped from the result and
+   * the trace.
+   *
+   * @param expanded
+   *          result of the last call of {@link #expand(Disjunction)}
+   * @param shared
+   * @return The renamed result
+   */
+  Collection<Disjunction> share(Collection<Disjunction> expanded,
+      Definitions shared) {
+    Map<Formula, Atomic> renaming = new HashMap<Formula, Atomic>();
+    for (Map.Entry<Formula, Definition> entry : definitions.entrySet()) {
+      Atomic atom = shared.atoms.get(entry.getKey());
+      if (atom == null) {
+        atom = FormulaFactory.atomic(shared.prefix + (shared.atoms.size() + 1),
+            null);
+        shared.atoms.put(entry.getKey(), atom);
+      }
+      renaming.put(entry.getValue().atom, atom);
+    }
+    Map<Disjunction, Disjunction> renamed = new HashMap<Disjunction, Disjunction>();
+    List<Disjunction> sharedTrace = new LinkedList<Disjunction>();
+    for (Disjunction clause : trace) {
+      Disjunction copy = rename(clause, renaming);
+      if (clause.rule == Rule.DEFINITION && !shared.clauses.add(copy))
+        continue;
+      renamed.put(clause, copy);
+      sharedTrace.add(copy);
+    }
+    trace = sharedTrace;
+    List<Disjunction> result = new ArrayList<Disjunction>(expanded.size());
+    for (Disjunction clause : expanded) {
+      Disjunction copy = renamed.get(clause);
+      if (copy != null)
+        result.add(copy);
+    }
+    return result;
+  }
+
+  /**
+   * @return The given disjunction with the definition atoms renamed, the
+   *         given one if none of its atoms is renamed
+   */
+  private static Disjunction rename(Disjunction clause,
+      Map<Formula, Atomic> renaming) {
+    List<Formula> literals = new ArrayList<Formula>(clause.formulae.size());
+    boolean renamed = false;
+    for (Formula literal : clause.formulae) {
+      boolean negative = literal.getKind() == Kind.Negation;
+      Atomic atom = renaming.get(negative ? ((Negation) literal).getArgument()
+          : literal);
+      if (atom == null) {
+        literals.add(literal);
+      } else {
+        literals.add(negative ? FormulaFactory.complement(atom) : atom);
+        renamed = true;
+      }
+    }
+    if (!renamed)
+      return clause;
+    Disjunction copy = new Disjunction(literals);
+    copy.origin.addAll(clause.origin);
+    copy.rule = clause.rule;
+    copy.index = clause.index;
+    return copy;
+  }
+
+  /**
+   * Adds the disjunctions for <code>context | formula</code>, splitting
+   * alpha formulae into one disjunction per conjunct.
+   *
+   * @param formula
+   * @param context
+   *          literals contained in every resulting disjunction
+   * @param rule
+   */
+  private void addClauses(Formula formula, Formula context, Rule rule) {
+    if (tptp_tester.isNegNegFormula(formula)) {
+      addClauses(((Negation) ((Negation) formula).getArgument())
+          .getArgument(), context, rule);
+    } else if (tptp_tester.isAlphaFormula(formula)) {
+      addClauses(tptp_tester.getAlpha1(formula), context, rule);
+      addClauses(tptp_tester.getAlpha2(formula), context, rule);
+    } else {
+      List<Formula> literals = new ArrayList<Formula>();
+      literals.add(context);
+      collectLiterals(formula, literals);
+      addClause(literals, rule);
+    }
+  }
+
+  /**
+   * Collects the literals of a disjunction equivalent to the given formula
+   * by applying beta rules, renaming alpha formulae.
+   *
+   * @param formula
+   * @param literals
+   */
+  private void collectLiterals(Formula formula, List<Formula> literals) {
+    switch (formula.getKind()) {
+    case Atomic:
+    case Boolean:
+      literals.add(formula);
+      return;
+    case Negation:
+      Formula argument = ((Negation) formula).getArgument();
+      if (argument.getKind() == Kind.Atomic) {
+        literals.add(formula);
+        return;
+      }
+      if (argument.getKind() == Kind.Boolean) {
+        literals.add(Util.negate((BooleanAtomic) argument));
+        return;
+      }
+      if (argument.getKind() == Kind.Negation) {
+        collectLiterals(((Negation) argument).getArgument(), literals);
+        return;
+      }
+      // binary negation
+      collectBinaryLiterals(formula, literals);
+      return;
+    case Binary:
+      collectBinaryLiterals(formula, literals);
+      return;
+    default:
+      throw new IllegalStateException("Unexpected kind of formula " + formula);
+    }
+  }
+
+  /**
+   * Applies a beta rule on the given binary formula or binary negation, or
+   * renames it if it is an alpha formula.
+   *
+   * @param formula
+   * @param literals
+   */
+  private void collectBinaryLiterals(Formula formula, List<Formula> literals) {
+    if (tptp_tester.isBetaFormula(formula)) {
+      collectLiterals(tptp_tester.getBeta1(formula), literals);
+      collectLiterals(tptp_tester.getBeta2(formula), literals);
+    } else if (tptp_tester.isAlphaFormula(formula)) {
+      literals.add(define(formula));
+    } else {
+      throw new IllegalStateException("Unexpected kind of formula " + formula);
+    }
+  }
+
+  /**
+   * Returns the literal of the definition atom of the given formula, adding
+   * the disjunctions stating that the literal implies the formula if not
+   * done before.
+   *
+   * @param formula
+   * @return Literal implying the given formula
+   */
+  private Formula define(Formula formula) {
+    boolean negative = formula.getKind() == Kind.Negation;
+    Formula key = negative ? ((Negation) formula).getArgument() : formula;
+    Definition definition = definitions.get(key);
+    if (definition == null) {
+      definition = new Definition(FormulaFactory.atomic(prefix
+          + (definitions.size() + 1), null));
+      definitions.put(key, definition);
+    }
+    if (negative) {
+      if (!definition.negative) {
+        definition.negative = true;
+        addClauses(formula, definition.atom, Rule.DEFINITION);
+      }
+      return FormulaFactory.complement(definition.atom);
+    }
+    if (!definition.positive) {
+      definition.positive = true;
+      addClauses(formula, FormulaFactory.complement(definition.atom),
+          Rule.DEFINITION);
+    }
+    return definition.atom;
+  }
+
+  /**
+   * Adds the disjunction of the given literals unless it is a tautology,
+   * dropping false literals.
+   *
+   * @param literals
+   * @param rule
+   */
+  private void addClause(List<Formula> literals, Rule rule) {
+    Set<Formula> formulae = new HashSet<Formula>();
+    for (Formula literal : literals) {
+      if (literal == BooleanAtomic.TRUE)
+        return;
+      if (literal == BooleanAtomic.FALSE)
+        continue;
+      if (formulae.contains(Util.negate(literal)))
+        return;
+      formulae.add(literal);
+    }
+    boolean empty = formulae.isEmpty();
+    if (empty)
+      formulae.add(BooleanAtomic.FALSE);
+    Disjunction clause = new Disjunction(origin, formulae);
+    clause.rule = rule;
+    if (empty)
+      falseDisjunction = clause;
+    if (clauses.add(clause))
+      trace.add(clause);
+  }
+}
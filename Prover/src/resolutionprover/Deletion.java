@@ -0,0 +1,20 @@
+package resolutionprover;
+
+/**
+ * Reason for discarding an {@link AtomicDisjunction} instead of keeping it
+ * as passive one or for evicting an active one, reported to a
+ * {@link ProverListener}.
+ */
+public enum Deletion {
+
+	DUPLICATE("duplicate"),
+	TAUTOLOGY("tautology"),
+	SUBSUMED("forward subsumed"),
+	BACKWARD_SUBSUMED("backward subsumed");
+
+	public final String humanReadable;
+
+	private Deletion(String humanReadable) {
+		this.humanReadable = humanReadable;
+	}
+}
@@ -1,123 +1,128 @@
 package resolutionprover;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 import tptp.BooleanAtomic;
 import tptp.Formula;
-
-public class Disjunction implements Comparable<Disjunction> {
-
-  public Set<Formula> formulae;
+import tptp.FormulaFactory;
+
+/**
+ * Immutable disjunction of {@link Formula}e. The formulae are shared through
+ * the {@link FormulaFactory}, free of duplicates and kept in a canonical
+ * order, so that equal disjunctions hold equal lists. Besides the cached hash
+ * code every disjunction has a 64-bit Zobrist fingerprint, the exclusive or
+ * of the keys of its formulae, which rejects unequal disjunctions without
+ * comparing their formulae.
+ */
+public class Disjunction extends TraceEntry implements Comparable<Disjunction> {
 
   /**
-   * Index of this disjunction
+   * Orders formulae by hash code and falls back to {@link Formula#compareTo}
+   * for formulae sharing it
    */
-  public int index = -1;
+  private static final Comparator<Formula> CANONICAL_ORDER = new Comparator<Formula>() {
+    @Override
+    public int compare(Formula o1, Formula o2) {
+      if (o1 == o2)
+        return 0;
+      int h1 = o1.hashCode();
+      int h2 = o2.hashCode();
+      if (h1 != h2)
+        return h1 < h2 ? -1 : 1;
+      return o1.compareTo(o2);
+    }
+  };
 
   /**
-   * Index of the disjunction that is the origin for this disjunction
+   * Formulae of this disjunction in canonical order, cannot be modified
    */
-  public List<Disjunction> origin = null;
+  public final List<Formula> formulae;
 
-  /**
-   * Rule that produced this disjunction
-   */
-  public Rule rule;
+  private final int hash;
+
+  private final long fingerprint;
 
   public Disjunction(Formula... formulae) {
-    this.origin = new ArrayList<Disjunction>();
-    this.formulae = new HashSet<Formula>();
-    for (Formula formula : formulae) {
-      this.formulae.add(formula);
-    }
+    this(Arrays.asList(formulae));
   }
 
   public Disjunction(Collection<Formula> formulae) {
-    this.formulae = new HashSet<Formula>(formulae);
-    this.origin = new ArrayList<Disjunction>();
+    Formula[] literals = new Formula[formulae.size()];
+    int size = 0;
+    for (Formula formula : formulae)
+      literals[size++] = FormulaFactory.intern(formula);
+    Arrays.sort(literals, CANONICAL_ORDER);
+    int hash = 0;
+    long fingerprint = 0;
+    int distinct = 0;
+    for (int i = 0; i < size; i++) {
+      // canonical formulae are equal iff they are identical
+      if (distinct > 0 && literals[distinct - 1] == literals[i])
+        continue;
+      literals[distinct++] = literals[i];
+      hash += literals[i].hashCode();
+      fingerprint ^= FormulaFactory.key(literals[i]);
+    }
+    if (distinct < size)
+      literals = Arrays.copyOf(literals, distinct);
+    this.formulae = Collections.unmodifiableList(Arrays.asList(literals));
+    this.hash = 31 + hash;
+    this.fingerprint = fingerprint;
   }
 
-  public Disjunction(Disjunction origin, Formula... formulae) {
+  public Disjunction(TraceEntry origin, Formula... formulae) {
     this(formulae);
     this.origin.add(origin);
   }
 
-  public Disjunction(Disjunction origin, Collection<Formula> formulae) {
-    this.formulae = new HashSet<Formula>(formulae);
-    this.origin = new ArrayList<Disjunction>();
+  public Disjunction(TraceEntry origin, Collection<Formula> formulae) {
+    this(formulae);
     this.origin.add(origin);
   }
 
-  public Disjunction(int index, Disjunction origin, Formula... formulae) {
-    this(formulae);
-    this.origin.add(origin);
+  public Disjunction(int index, TraceEntry origin, Formula... formulae) {
+    this(origin, formulae);
     this.index = index;
   }
 
-  public Disjunction(int index, Disjunction origin, Collection<Formula> formulae) {
-    this.formulae = new HashSet<Formula>(formulae);
-    this.origin = new ArrayList<Disjunction>();
-    this.origin.add(origin);
-    ;
+  public Disjunction(int index, TraceEntry origin, Collection<Formula> formulae) {
+    this(origin, formulae);
     this.index = index;
   }
 
-  @Override
-  public String toString() {
-    if (rule == null || origin == null)
-      return formulae.toString();
-    Set<Integer> originIndizes = new HashSet<Integer>();
-    for (Disjunction d : origin)
-      originIndizes.add(d.index);
-    if (rule == Rule.AXIOM || rule == Rule.CONJECTURE)
-      return String.format("%s  (%s)", formulae.toString(), rule.humanReadable);
-    return String.format("%s  (from %s by applying %s)", formulae.toString(),
-        Util.collectionToString(originIndizes), rule.humanReadable);
+  /**
+   * @return Zobrist fingerprint of the formulae, equal for equal disjunctions
+   */
+  public long fingerprint() {
+    return fingerprint;
   }
 
-  public String toString(int commentIndent) {
-    String formulaeString = formulae.toString();
-    if (rule == null || origin == null)
-      return formulaeString;
-    int formulaeStringLength = formulaeString.length();
-    StringBuilder builder = new StringBuilder(formulaeString);
-    for (int i = formulaeStringLength; i < commentIndent; i++)
-      builder.append(" ");
-    Set<Integer> originIndizes = new HashSet<Integer>();
-    for (Disjunction d : origin)
-      originIndizes.add(d.index);
-    if (rule == Rule.AXIOM || rule == Rule.CONJECTURE)
-      builder.append(String.format("(%s)", rule.humanReadable));
-    else
-      builder.append(String.format("(from %s by applying %s)", Util
-          .collectionToString(originIndizes), rule.humanReadable));
-    return builder.toString();
+  @Override
+  public String literalsToString() {
+    return formulae.toString();
   }
 
   @Override
   public int compareTo(Disjunction o) {
-    return new Integer(formulae.size()).compareTo(o.formulae.size());
+    return formulae.size() - o.formulae.size();
   }
 
   public boolean isEmpty() {
     if (formulae.isEmpty())
       return true;
     if (formulae.size() == 1)
-      if (formulae.iterator().next().equals(BooleanAtomic.FALSE))
+      if (formulae.get(0).equals(BooleanAtomic.FALSE))
         return true;
     return false;
   }
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + ((formulae == null) ? 0 : formulae.hashCode());
-    return result;
+    return hash;
   }
 
   @Override
@@ -129,17 +134,15 @@ public class Disjunction implements Comparable<Disjunction> {
     if (getClass() != obj.getClass())
       return false;
     Disjunction other = (Disjunction) obj;
-    if (formulae == null) {
-      if (other.formulae != null)
-        return false;
-    } else if (!formulae.equals(other.formulae))
+    if (fingerprint != other.fingerprint || hash != other.hash)
       return false;
-    return true;
+    // fingerprints collide, compare the canonical formulae
+    return formulae.equals(other.formulae);
   }
 
   public boolean isTautology() {
     if (formulae.size() == 1)
-      return formulae.iterator().next().equals(BooleanAtomic.TRUE);
+      return formulae.get(0).equals(BooleanAtomic.TRUE);
     return false;
   }
 
@@ -147,7 +150,7 @@ public class Disjunction implements Comparable<Disjunction> {
     if (formulae.size() == 0)
       return true;
     if (formulae.size() == 1)
-      return formulae.iterator().next().equals(BooleanAtomic.FALSE);
+      return formulae.get(0).equals(BooleanAtomic.FALSE);
     return false;
   }
 }
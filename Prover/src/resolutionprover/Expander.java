@@ -1,5 +1,6 @@
 package resolutionprover;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -16,11 +17,12 @@ import tptp.Kind;
 import tptp.Negation;
 import tptp.tptp_tester;
 
-public class Expander {
+public class Expander implements Clausifier {
 
   private Queue<Disjunction> workingQueue;
   public Set<Disjunction> seenDisjunctions;
   public List<Disjunction> trace;
+  private ResourceLimits limits;
 
   public Expander() {
     workingQueue = new LinkedList<Disjunction>();
@@ -28,15 +30,30 @@ public class Expander {
     trace = new LinkedList<Disjunction>();
   }
 
+  /**
+   * Creates an {@link Expander} checking the given {@link ResourceLimits}
+   * for every expanded {@link Disjunction}.
+   *
+   * @param limits
+   */
+  public Expander(ResourceLimits limits) {
+    this();
+    this.limits = limits;
+  }
+
   /**
    * Exhaustively applies the resolution expansion rules on the given
    * {@link Disjunction}. The resulting {@link Disjunction}s contain only
-   * {@link Atomic}s. Atomics will be present in the trace, already.
+   * {@link Atomic}s. Atomics will be present in the trace, already. If the
+   * expansion yields a false {@link Disjunction}, only this one is returned.
    * 
    * @param disjunction
    * @return {@link Collection} of {@link Disjunction} containing {@link Atomic}
    *         s only
+   * @throws ResourceLimitException
+   *           if one of the {@link ResourceLimits} is reached
    */
+  @Override
   public Collection<Disjunction> expand(Disjunction disjunction) {
 
     seenDisjunctions.clear();
@@ -50,17 +67,18 @@ public class Expander {
     Set<Disjunction> atomicDisjunctions = new HashSet<Disjunction>();
 
     while (!workingQueue.isEmpty()) {
+      if (limits != null)
+        limits.check(workingQueue.size() + atomicDisjunctions.size());
       Disjunction currentDisjunction = workingQueue.poll();
       Disjunction[] expandedDisjunctions = doExpansion(currentDisjunction);
       if (expandedDisjunctions != null) {
         for (Disjunction d : expandedDisjunctions) {
           addToTrace(d);
           if (d.isFalse())
-            return Collections.emptySet();
-          if (!d.isTautology()) {
+            return Collections.singleton(d);
+          // tautologies are simply dropped
+          if (!d.isTautology())
             addToWorkingQueue(d);
-          } else
-            atomicDisjunctions.add(currentDisjunction);
           seenDisjunctions.add(d);
         }
       } else {
@@ -99,13 +117,7 @@ public class Expander {
       Formula form = iterator.next();
       switch (form.getKind()) {
       case Boolean:
-        if (form == BooleanAtomic.TRUE) {
-          disjunction.formulae.clear();
-          disjunction.formulae.add(BooleanAtomic.TRUE);
-        } else {
-          disjunction.formulae.remove(BooleanAtomic.FALSE);
-        }
-        return new Disjunction[] { disjunction };
+        return new Disjunction[] { simplifyBoolean(disjunction, form) };
       case Atomic:
 
         // assuming that all elements are atomic if the last element is atomic
@@ -167,12 +179,35 @@ public class Expander {
      * except the current formula and additionally contains the betas,
      * recursively reduce this new disjunction
      */
-    newDisjunction = Util.replaceElement(disjunction, form, beta1);
+    Set<Formula> formulae = Util.replaceElement(disjunction.formulae, form,
+        beta1);
+    if (!(formulae.size() == 1 && formulae.contains(BooleanAtomic.TRUE)))
+      formulae.add(beta2);
+    newDisjunction = new Disjunction(disjunction, formulae);
     newDisjunction.rule = Rule.BETA;
-    newDisjunction.origin.add(disjunction);
-    if (newDisjunction.isTautology())
-      return newDisjunction;
-    newDisjunction.formulae.add(beta2);
+
+    return newDisjunction;
+  }
+
+  /**
+   * Simplifies a {@link Disjunction} containing a truth value, which becomes
+   * true if the value is true and loses the value otherwise.
+   *
+   * @param disjunction
+   * @param bool
+   *          {@link BooleanAtomic} contained in the {@link Disjunction}
+   * @return The simplified {@link Disjunction}
+   */
+  private Disjunction simplifyBoolean(Disjunction disjunction, Formula bool) {
+    Disjunction newDisjunction;
+    if (bool == BooleanAtomic.TRUE) {
+      newDisjunction = new Disjunction(disjunction, bool);
+    } else {
+      List<Formula> formulae = new ArrayList<Formula>(disjunction.formulae);
+      formulae.remove(bool);
+      newDisjunction = new Disjunction(disjunction, formulae);
+    }
+    newDisjunction.rule = Rule.BOOLEAN;
 
     return newDisjunction;
   }
@@ -231,6 +266,7 @@ public class Expander {
     return newDisjunction;
   }
 
+  @Override
   public List<Disjunction> getTrace() {
     return trace;
   }
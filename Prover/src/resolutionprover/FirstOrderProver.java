@@ -2,19 +2,15 @@ package resolutionprover;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.Map.Entry;
 
 import tptp.AnnotatedFormula;
-import tptp.Atomic;
 import tptp.Binary;
 import tptp.Formula;
+import tptp.FormulaFactory;
 import tptp.Kind;
 import tptp.Negation;
 import tptp.Quantified;
@@ -41,19 +37,32 @@ public class FirstOrderProver extends PropositionalProver {
   @Override
   public boolean prove() {
 
-    System.out.println("\n************ First Order Proof ************");
+    printStatus("\n************ First Order Proof ************");
 
     List<Disjunction> propositionalDisjunctions = new LinkedList<Disjunction>();
 
+    long prenexNanos = 0;
+    long skolemizationNanos = 0;
     for (Disjunction disjunction : disjunctions) {
+      long start = System.nanoTime();
       Disjunction prenex = prenex(disjunction);
-      trace.add(prenex);
+      prenexNanos += System.nanoTime() - start;
+      addToTrace(prenex);
+      start = System.nanoTime();
       Disjunction skolemizedDisjunction = skolemize(prenex);
-      trace.add(skolemizedDisjunction);
+      addToTrace(skolemizedDisjunction);
       Disjunction notQuantifiedDisjunction = removeAllQuantifier(skolemizedDisjunction);
+      skolemizationNanos += System.nanoTime() - start;
+      if (listener != null) {
+        if (prenex != disjunction)
+          listener.generated(prenex);
+        listener.generated(skolemizedDisjunction);
+      }
       // could be the same
       if (!skolemizedDisjunction.equals(notQuantifiedDisjunction)) {
-        trace.add(notQuantifiedDisjunction);
+        addToTrace(notQuantifiedDisjunction);
+        if (listener != null)
+          listener.generated(notQuantifiedDisjunction);
         propositionalDisjunctions.add(notQuantifiedDisjunction);
       } else {
         propositionalDisjunctions.add(skolemizedDisjunction);
@@ -61,57 +70,12 @@ public class FirstOrderProver extends PropositionalProver {
     }
 
     disjunctions = propositionalDisjunctions;
-
-    boolean result = super.prove();
-
-//    if (!result && !rest.isEmpty()) {
-//      unify();
-//      performResolution(rest);
-//    }
-
-    return result;
-  }
-
-  private void unify() {
-    Map<Term, Term> mapping = new HashMap<Term, Term>();
-    Map<String, List<Disjunction>> predicates = new HashMap<String, List<Disjunction>>();
-    for (Disjunction disjunction : rest) {
-      for (Formula formula : disjunction.formulae) {
-        if (formula.getKind() == Kind.Atomic) {
-          String predicate = ((Atomic) formula).getPredicate();
-          List<Disjunction> disjunctions = predicates.get(predicate);
-          if (disjunctions == null)
-            predicates.put(predicate,
-                disjunctions = new LinkedList<Disjunction>());
-          disjunctions.add(disjunction);
-        }
-      }
-    }
-    Disjunction last = null;
-    for (Entry<String, List<Disjunction>> entry : predicates.entrySet()) {
-      String predicate = entry.getKey();
-      for (Disjunction disjunction : entry.getValue()) {
-        if (last != null) {
-          Formula formula1, formula2;
-          formula1 = last.formulae.iterator().next();
-          formula2 = disjunction.formulae.iterator().next();
-          if (formula1.getKind() == Kind.Atomic && formula2.getKind() == Kind.Atomic) {
-            Atomic atomic1, atomic2;
-            atomic1 = (Atomic) formula1;
-            atomic2 = (Atomic) formula2;
-            Iterator<Term> iterator1 = atomic1.getArguments().iterator();
-            Iterator<Term> iterator2 = atomic2.getArguments().iterator();
-            while (iterator1.hasNext() && iterator2.hasNext()) {
-              Term t1 = iterator1.next();
-              Term t2 = iterator2.next();
-              
-            }
-          } else
-            throw new IllegalStateException("FOOOOOO");
-        }
-        last = disjunction;
-      }
+    if (listener != null) {
+      listener.phaseFinished(Phase.PRENEX, prenexNanos);
+      listener.phaseFinished(Phase.SKOLEMIZATION, skolemizationNanos);
     }
+
+    return super.prove();
   }
 
   private Disjunction prenex(Disjunction disjunction) {
@@ -180,9 +144,7 @@ public class FirstOrderProver extends PropositionalProver {
           localFormula = tptp_tester.getDeltaT(localFormula,
               createSkolem(seenAllQuantified), out);
         } else {
-          Formula newFormula = localFormula;
-          formulae.add((Formula) out.createQuantifiedFormula(Quantifier.ForAll,
-              seenAllQuantified, newFormula));
+          formulae.add(quantifyFresh(seenAllQuantified, localFormula));
           localFormula = null;
         }
       }
@@ -192,6 +154,27 @@ public class FirstOrderProver extends PropositionalProver {
     return skolemizedDisjunction;
   }
 
+  /**
+   * Quantifies the given formula universally, renaming every given variable
+   * to a fresh one. The parser names bound variables per formula, so this
+   * keeps the variables of different formulae apart once the quantifiers are
+   * dropped.
+   * 
+   * @param variables
+   * @param formula
+   * @return The universally quantified formula
+   */
+  private Formula quantifyFresh(Set<String> variables, Formula formula) {
+    for (String variable : variables) {
+      String fresh = tptp_tester.freshVariableName();
+      formula = FormulaFactory.quantified(Quantifier.ForAll, fresh,
+          tptp_tester.substituteFormula(formula, (Term) out
+              .createVariableTerm(variable), (Term) out
+              .createVariableTerm(fresh), out));
+    }
+    return formula;
+  }
+
   private Term createSkolem(Set<String> seenAllQuantified) {
     // if there have not been seen any free variables yet, just use a new
     // constant
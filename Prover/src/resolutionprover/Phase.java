@@ -0,0 +1,18 @@
+package resolutionprover;
+
+/**
+ * Stage of a proof whose duration is reported to a {@link ProverListener}.
+ */
+public enum Phase {
+
+	PRENEX("prenex normal form"),
+	SKOLEMIZATION("skolemization"),
+	CLAUSIFICATION("clausification"),
+	REFUTATION("refutation");
+
+	public final String humanReadable;
+
+	private Phase(String humanReadable) {
+		this.humanReadable = humanReadable;
+	}
+}
@@ -0,0 +1,235 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import tptp.AnnotatedFormula;
+import tptp.Formula;
+import tptp.TptpParserOutput.FormulaRole;
+
+/**
+ * Races several configurations of the {@link PropositionalProver} against
+ * the same problem, each on its own thread. The first configuration proving
+ * or disproving the conjectures wins and the others are cancelled through
+ * their {@link ResourceLimits}. All configurations share the parsed formulae,
+ * which are immutable, so only the clausification is done once per
+ * configuration.
+ */
+public class Portfolio {
+
+  /**
+   * Configures the {@link PropositionalProver} of one member of a
+   * {@link Portfolio}
+   */
+  public interface Strategy {
+
+    /**
+     * Configures the given prover before it is started. Every member proves
+     * single threaded and without trace unless configured otherwise, its
+     * {@link ResourceLimits} are set by the {@link Portfolio}.
+     *
+     * @param prover
+     */
+    void configure(PropositionalProver prover);
+  }
+
+  /**
+   * Member of the portfolio proving with its own {@link PropositionalProver}
+   */
+  private class Member implements Callable<Member> {
+    private final String name;
+    private final PropositionalProver prover;
+    private final ResourceLimits limits = new ResourceLimits();
+
+    Member(String name, Strategy strategy) {
+      this.name = name;
+      prover = new PropositionalProver(axioms, conjectures);
+      prover.setTraceMode(TraceMode.OFF);
+      prover.setClausificationThreads(1);
+      prover.setResolutionThreads(1);
+      strategy.configure(prover);
+      if (timeout != Long.MAX_VALUE)
+        limits.setDeadline(deadline);
+      prover.setResourceLimits(limits);
+    }
+
+    @Override
+    public Member call() {
+      prover.prove();
+      return this;
+    }
+  }
+
+  private final Collection<Formula> axioms;
+  private final Formula[] conjectures;
+  private final List<String> names = new ArrayList<String>();
+  private final List<Strategy> strategies = new ArrayList<Strategy>();
+  private long timeout = Long.MAX_VALUE;
+  private long deadline;
+  private String winner;
+  private PropositionalProver winningProver;
+
+  public Portfolio(Collection<Formula> axioms, Formula... conjectures) {
+    this.axioms = axioms;
+    this.conjectures = conjectures;
+  }
+
+  public Portfolio(AnnotatedFormula... formulae) {
+    axioms = new ArrayList<Formula>(formulae.length);
+    List<Formula> conjs = new LinkedList<Formula>();
+    for (AnnotatedFormula af : formulae) {
+      if (af.getRole() == FormulaRole.Conjecture)
+        conjs.add(af.getFormula());
+      else
+        axioms.add(af.getFormula());
+    }
+    conjectures = conjs.toArray(new Formula[0]);
+  }
+
+  /**
+   * Adds a member to the portfolio.
+   *
+   * @param name
+   *          name of the member as returned by {@link #getWinner()}
+   * @param strategy
+   *          {@link Strategy} configuring the prover of the member
+   */
+  public void addStrategy(String name, Strategy strategy) {
+    names.add(name);
+    strategies.add(strategy);
+  }
+
+  /**
+   * Adds members differing in backend, clausification and clause selection:
+   * the SAT backend, resolution selecting by age and weight in the ratios 1:4
+   * and 1:1, and resolution on definitional clausification.
+   */
+  public void addDefaultStrategies() {
+    addStrategy("cdcl", new Strategy() {
+      @Override
+      public void configure(PropositionalProver prover) {
+        prover.setBackend(Backend.CDCL);
+      }
+    });
+    addStrategy("resolution-1:4", new Strategy() {
+      @Override
+      public void configure(PropositionalProver prover) {
+        prover.setBackend(Backend.RESOLUTION);
+      }
+    });
+    addStrategy("resolution-1:1", new Strategy() {
+      @Override
+      public void configure(PropositionalProver prover) {
+        prover.setBackend(Backend.RESOLUTION);
+        prover.setClauseSelection(new AgeWeightSelection(1, 1));
+      }
+    });
+    addStrategy("definitional-resolution", new Strategy() {
+      @Override
+      public void configure(PropositionalProver prover) {
+        prover.setBackend(Backend.RESOLUTION);
+        prover.setClausification(Clausification.DEFINITIONAL);
+      }
+    });
+  }
+
+  /**
+   * Sets the time every member may take, measured from the call of
+   * {@link #prove()}. Defaults to no limit.
+   *
+   * @param millis
+   */
+  public void setTimeout(long millis) {
+    this.timeout = millis;
+  }
+
+  /**
+   * Runs all members concurrently until one of them proves or disproves the
+   * conjectures, cancelling the others, or all of them gave up. A member
+   * throwing a {@link RuntimeException} gives up as well.
+   *
+   * @return {@link ProofResult#VALID} or {@link ProofResult#NOT_VALID} as
+   *         found by the winner, otherwise the result of the last member
+   *         giving up
+   * @throws RuntimeException
+   *           the first failure if every member failed
+   */
+  public ProofResult prove() {
+    if (strategies.isEmpty())
+      throw new IllegalStateException("No strategy in the portfolio");
+    winner = null;
+    winningProver = null;
+    deadline = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System
+        .currentTimeMillis() + timeout;
+    List<Member> members = new ArrayList<Member>(strategies.size());
+    for (int i = 0; i < strategies.size(); i++)
+      members.add(new Member(names.get(i), strategies.get(i)));
+
+    ExecutorService executor = Executors.newFixedThreadPool(members.size());
+    CompletionService<Member> completion = new ExecutorCompletionService<Member>(
+        executor);
+    ProofResult result = null;
+    RuntimeException failure = null;
+    try {
+      for (Member member : members)
+        completion.submit(member);
+      for (int i = 0; i < members.size(); i++) {
+        Member done;
+        try {
+          done = completion.take().get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            // a failed member loses, the others keep racing
+            if (failure == null)
+              failure = (RuntimeException) e.getCause();
+            continue;
+          }
+          if (e.getCause() instanceof Error)
+            throw (Error) e.getCause();
+          throw new IllegalStateException(e.getCause());
+        }
+        result = done.prover.getResult();
+        if (result.isKnown()) {
+          winner = done.name;
+          winningProver = done.prover;
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for members", e);
+    } finally {
+      for (Member member : members)
+        member.limits.cancel();
+      executor.shutdown();
+    }
+    if (result == null)
+      throw failure;
+    return result;
+  }
+
+  /**
+   * @return Name of the member that proved or disproved the conjectures in
+   *         the last call of {@link #prove()}, <code>null</code> if there was
+   *         none
+   */
+  public String getWinner() {
+    return winner;
+  }
+
+  /**
+   * @return The {@link PropositionalProver} of the winner, e.g. to retrieve
+   *         its refutation, <code>null</code> if there was none
+   */
+  public PropositionalProver getWinningProver() {
+    return winningProver;
+  }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 
 import tptp.Binary;
 import tptp.Formula;
+import tptp.FormulaFactory;
 import tptp.Kind;
 import tptp.Negation;
 import tptp.Quantified;
@@ -34,7 +35,7 @@ public class Prenex {
         alpha2Prenex = new Prenex(tptp_tester.getAlpha2(binaryFormula));
         quantifiedVariables.addAll(alpha1Prenex.quantifiedVariables);
         quantifiedVariables.addAll(alpha2Prenex.quantifiedVariables);
-        formulaUnquantified = new Binary(alpha1Prenex.getFormulaUnquantified(),
+        formulaUnquantified = FormulaFactory.binary(alpha1Prenex.getFormulaUnquantified(),
             BinaryConnective.And, alpha2Prenex.getFormulaUnquantified());
       }
       if (tptp_tester.isBetaFormula(binaryFormula)) {
@@ -43,7 +44,7 @@ public class Prenex {
         beta2Prenex = new Prenex(tptp_tester.getBeta2(binaryFormula));
         quantifiedVariables.addAll(beta1Prenex.quantifiedVariables);
         quantifiedVariables.addAll(beta2Prenex.quantifiedVariables);
-        formulaUnquantified = new Binary(beta1Prenex.getFormulaUnquantified(),
+        formulaUnquantified = FormulaFactory.binary(beta1Prenex.getFormulaUnquantified(),
             BinaryConnective.Or, beta2Prenex.getFormulaUnquantified());
       }
       break;
@@ -84,7 +85,7 @@ public class Prenex {
         Formula result = getFormulaUnquantified();
         Collections.reverse(quantifiedVariables);
         for (QuantifiedVariable quantifiedVariable : quantifiedVariables) {
-          result = new Quantified(quantifiedVariable.getQuantifier(),
+          result = FormulaFactory.quantified(quantifiedVariable.getQuantifier(),
               quantifiedVariable.variable, result);
         }
         prenex = (Quantified) result;
@@ -0,0 +1,289 @@
+package resolutionprover;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tptp.Atomic;
+import tptp.Formula;
+import tptp.FormulaFactory;
+import tptp.Kind;
+import tptp.Symbol;
+import tptp.Term;
+import tptp.TptpParserOutput;
+
+/**
+ * Binary snapshot of the clausified axioms of a {@link ProverSession}, so
+ * that reloading a problem skips parsing and clausification. A snapshot
+ * consists of
+ * <ul>
+ * <li>a header with the session state,</li>
+ * <li>the symbol table holding every predicate and function name once,</li>
+ * <li>the atoms in the order of their ids, written as trees of symbol
+ * numbers,</li>
+ * <li>the clauses as arrays of int literals.</li>
+ * </ul>
+ * All numbers are big-endian ints. The snapshot is read from a memory mapped
+ * file, the atoms being interned through the {@link FormulaFactory} again.
+ */
+public class ProblemSnapshot {
+
+  private static final int MAGIC = 0x50525342;
+  private static final int VERSION = 1;
+  /**
+   * Argument count of atoms and terms without argument list
+   */
+  private static final int NO_ARGUMENTS = -1;
+  /**
+   * Maximum nesting of terms within an atom, bounding the recursion when
+   * reading a snapshot
+   */
+  private static final int MAX_TERM_DEPTH = 1024;
+
+  private ProblemSnapshot() {
+  }
+
+  /**
+   * Writes the clausified axioms of the given session to the given file.
+   *
+   * @param session
+   * @param file
+   * @throws IOException
+   *           if the file cannot be written
+   * @throws IllegalArgumentException
+   *           if an atom is not an {@link Atomic} or nests its terms deeper
+   *           than a snapshot allows
+   */
+  public static void write(ProverSession session, File file)
+      throws IOException {
+    AtomTable atomTable = session.atomTable;
+    Map<String, Integer> symbols = new HashMap<String, Integer>();
+    List<String> symbolTable = new ArrayList<String>();
+    for (int atom = 0; atom < atomTable.size(); atom++) {
+      Formula formula = atomTable.formula(AtomTable.positive(atom));
+      if (formula.getKind() != Kind.Atomic)
+        throw new IllegalArgumentException("Cannot write atom " + formula);
+      Atomic atomic = (Atomic) formula;
+      addSymbol(atomic.getPredicate(), symbols, symbolTable);
+      addSymbols(atomic.getArguments(), symbols, symbolTable);
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(session.clausification.ordinal());
+      out.writeInt(session.disjunctions);
+      out.writeInt(session.satisfiable == null ? -1
+          : session.satisfiable ? 1 : 0);
+
+      out.writeInt(symbolTable.size());
+      for (String symbol : symbolTable) {
+        byte[] bytes = symbol.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+
+      out.writeInt(atomTable.size());
+      for (int atom = 0; atom < atomTable.size(); atom++) {
+        Atomic atomic = (Atomic) atomTable.formula(AtomTable.positive(atom));
+        out.writeInt(symbols.get(atomic.getPredicate()));
+        writeArguments(out, atomic.getNumberOfArguments(), atomic
+            .getArguments(), symbols, 0);
+      }
+
+      out.writeInt(session.axioms.size());
+      for (AtomicDisjunction axiom : session.axioms) {
+        out.writeInt(axiom.index);
+        out.writeInt(axiom.literals.length);
+        for (int literal : axiom.literals)
+          out.writeInt(literal);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Restores a session from the snapshot in the given file.
+   *
+   * @param file
+   * @return A {@link ProverSession} holding the clausified axioms of the
+   *         snapshot
+   * @throws IOException
+   *           if the file cannot be read or is no snapshot
+   */
+  public static ProverSession read(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      return read(buffer);
+    } catch (BufferUnderflowException e) {
+      throw new IOException("Truncated snapshot " + file);
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Corrupt snapshot " + file);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static ProverSession read(MappedByteBuffer buffer)
+      throws IOException {
+    if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+      throw new IOException("Not a snapshot of this version");
+    Clausification clausification = Clausification.values()[buffer.getInt()];
+    int disjunctions = buffer.getInt();
+    int satisfiable = buffer.getInt();
+
+    // every symbol takes at least its length
+    String[] symbolTable = new String[checkLength(buffer.getInt(), buffer, 4)];
+    for (int i = 0; i < symbolTable.length; i++) {
+      byte[] bytes = new byte[checkLength(buffer.getInt(), buffer, 1)];
+      buffer.get(bytes);
+      symbolTable[i] = new String(bytes, "UTF-8");
+    }
+
+    // every atom takes at least its predicate and argument count
+    AtomTable atomTable = new AtomTable();
+    int atoms = checkLength(buffer.getInt(), buffer, 8);
+    for (int atom = 0; atom < atoms; atom++) {
+      String predicate = symbolTable[buffer.getInt()];
+      atomTable.id(FormulaFactory.atomic(predicate, readArguments(buffer,
+          symbolTable, 0)));
+    }
+    if (atomTable.size() != atoms)
+      throw new IOException("Duplicate atoms in snapshot");
+
+    // every clause takes at least its index and length
+    int clauses = checkLength(buffer.getInt(), buffer, 8);
+    List<AtomicDisjunction> axioms = new ArrayList<AtomicDisjunction>(clauses);
+    for (int i = 0; i < clauses; i++) {
+      int index = buffer.getInt();
+      int[] literals = new int[checkLength(buffer.getInt(), buffer, 4)];
+      for (int j = 0; j < literals.length; j++) {
+        literals[j] = buffer.getInt();
+        if (literals[j] < 0 || AtomTable.atom(literals[j]) >= atoms)
+          throw new IOException("Literal " + literals[j] + " out of range");
+        if (j > 0 && literals[j] <= literals[j - 1])
+          throw new IOException("Literals of clause " + index
+              + " not strictly ascending");
+      }
+      AtomicDisjunction axiom = new AtomicDisjunction(atomTable, literals);
+      axiom.index = index;
+      axiom.rule = Rule.AXIOM;
+      axioms.add(axiom);
+    }
+
+    ProverSession session = new ProverSession(atomTable, axioms, disjunctions,
+        satisfiable < 0 ? null : Boolean.valueOf(satisfiable > 0));
+    session.setClausification(clausification);
+    return session;
+  }
+
+  private static void addSymbol(String symbol, Map<String, Integer> symbols,
+      List<String> symbolTable) {
+    if (!symbols.containsKey(symbol)) {
+      symbols.put(symbol, symbolTable.size());
+      symbolTable.add(symbol);
+    }
+  }
+
+  private static void addSymbols(Iterable<Term> terms,
+      Map<String, Integer> symbols, List<String> symbolTable) {
+    if (terms == null)
+      return;
+    for (Term term : terms) {
+      addSymbol(term.getTopSymbol().getText(), symbols, symbolTable);
+      addSymbols(term.getArguments(), symbols, symbolTable);
+    }
+  }
+
+  /**
+   * Writes the number of the given terms followed by each term as number of
+   * its symbol, whether the symbol is a variable and its arguments.
+   *
+   * @param depth
+   *          number of terms enclosing the given ones
+   */
+  private static void writeArguments(DataOutputStream out, int count,
+      Iterable<Term> terms, Map<String, Integer> symbols, int depth)
+      throws IOException {
+    if (terms == null) {
+      out.writeInt(NO_ARGUMENTS);
+      return;
+    }
+    if (depth >= MAX_TERM_DEPTH)
+      throw new IllegalArgumentException("Terms nested deeper than "
+          + MAX_TERM_DEPTH);
+    out.writeInt(count);
+    for (Term term : terms) {
+      Symbol symbol = term.getTopSymbol();
+      out.writeInt(symbols.get(symbol.getText()));
+      out.writeInt(symbol.isVariable() ? 1 : 0);
+      writeArguments(out, term.getNumberOfArguments(), term.getArguments(),
+          symbols, depth + 1);
+    }
+  }
+
+  /**
+   * Checks the number of the following elements before allocating them.
+   *
+   * @param length
+   *          number of elements read from the snapshot
+   * @param buffer
+   * @param elementBytes
+   *          minimum number of bytes of every element
+   * @return The given length
+   * @throws IOException
+   *           if the elements cannot fit into the rest of the snapshot
+   */
+  private static int checkLength(int length, MappedByteBuffer buffer,
+      int elementBytes) throws IOException {
+    if (length < 0 || length > buffer.remaining() / elementBytes)
+      throw new IOException("Length " + length + " exceeds the snapshot");
+    return length;
+  }
+
+  /**
+   * Reads the arguments written by
+   * {@link #writeArguments(DataOutputStream, int, Iterable, Map, int)}.
+   *
+   * @param depth
+   *          number of terms enclosing the arguments
+   * @throws IOException
+   *           if the terms are nested deeper than {@link #MAX_TERM_DEPTH}
+   */
+  private static List<TptpParserOutput.Term> readArguments(
+      MappedByteBuffer buffer, String[] symbolTable, int depth)
+      throws IOException {
+    int count = buffer.getInt();
+    if (count == NO_ARGUMENTS)
+      return null;
+    if (depth >= MAX_TERM_DEPTH)
+      throw new IOException("Terms nested deeper than " + MAX_TERM_DEPTH);
+    // every term takes at least its symbol, variable flag and argument count
+    checkLength(count, buffer, 12);
+    List<TptpParserOutput.Term> terms = new ArrayList<TptpParserOutput.Term>(
+        count);
+    for (int i = 0; i < count; i++) {
+      Symbol symbol = new Symbol(symbolTable[buffer.getInt()],
+          buffer.getInt() != 0);
+      terms.add(new Term(symbol, readArguments(buffer, symbolTable,
+          depth + 1)));
+    }
+    return terms;
+  }
+}
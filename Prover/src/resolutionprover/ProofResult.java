@@ -0,0 +1,29 @@
+package resolutionprover;
+
+/**
+ * Outcome of {@link PropositionalProver#prove()}. Unless the conjecture was
+ * proven or disproven, the result is unknown because one of the
+ * {@link ResourceLimits} was reached.
+ */
+public enum ProofResult {
+
+	VALID("valid"),
+	NOT_VALID("not valid"),
+	TIMEOUT("unknown, the deadline passed"),
+	RESOURCE_OUT("unknown, resources exhausted"),
+	CANCELLED("unknown, cancelled");
+
+	public final String humanReadable;
+
+	private ProofResult(String humanReadable) {
+		this.humanReadable = humanReadable;
+	}
+
+	/**
+	 * @return <code>true</code> if the conjecture was either proven or
+	 *         disproven
+	 */
+	public boolean isKnown() {
+		return this == VALID || this == NOT_VALID;
+	}
+}
@@ -0,0 +1,22 @@
+package resolutionprover;
+
+/**
+ * Destination of the proof trace of the {@link PropositionalProver}. Entries
+ * are passed as soon as they are derived, so a sink should render them right
+ * away instead of collecting them.
+ */
+public interface ProofSink {
+
+  /**
+   * Writes the given entry. Its {@link TraceEntry#index} is assigned and its
+   * origins that are part of the trace were added before.
+   *
+   * @param entry
+   */
+  void add(TraceEntry entry);
+
+  /**
+   * Flushes everything written so far to the underlying output.
+   */
+  void flush();
+}
@@ -1,34 +1,175 @@
 package resolutionprover;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import tptp.AnnotatedFormula;
-import tptp.BooleanAtomic;
 import tptp.Formula;
-import tptp.Kind;
-import tptp.Negation;
 import tptp.TptpParserOutput.FormulaRole;
 
 public class PropositionalProver {
 
 	protected List<Disjunction> disjunctions;
-	protected List<Disjunction> trace;
-	protected Set<Disjunction> seenDisjunctions;
-	protected PriorityQueue<Disjunction> workingQueue;
-	protected Map<Formula, Set<Disjunction>> resolutionMap;
-	protected List<Disjunction> rest = new LinkedList<Disjunction>();
+	/**
+	 * Entries added before proving started, afterwards they are passed to the
+	 * proofSink right away
+	 */
+	protected List<TraceEntry> trace;
+	protected ProofSink proofSink;
+	/**
+	 * Notified while proving if set, every notification is guarded by a check
+	 * for <code>null</code>
+	 */
+	protected ProverListener listener;
+	/**
+	 * Checked cooperatively while proving if set
+	 */
+	protected ResourceLimits limits;
+	protected ProofResult result;
+	protected AtomTable atomTable;
+	protected Set<AtomicDisjunction> seenDisjunctions;
+	/**
+	 * Generated {@link AtomicDisjunction}s waiting to be selected as given
+	 * disjunction
+	 */
+	protected ClauseSelection passive;
+	/**
+	 * Selected {@link AtomicDisjunction}s indexed by the literals they contain
+	 */
+	protected ActiveSet active;
     
-	protected Collection<Disjunction> atoms;
+	protected Collection<AtomicDisjunction> atoms;
+	/**
+	 * Session whose axioms are refuted together with the atoms, can be null
+	 */
+	protected ProverSession session;
+	/**
+	 * Solver holding the axioms of the session the CDCL backend refutes on
+	 * instead of the session's one, can be null
+	 */
+	ProverSession.AxiomSolver axiomSolver;
+	/**
+	 * Copies of the axioms of the session, made if resolution or the full
+	 * trace needs them
+	 */
+	protected List<AtomicDisjunction> clausifiedAxioms = Collections.emptyList();
+	/**
+	 * Set if the clausifiedAxioms are satisfiable on their own. Then the
+	 * resolution backend starts with them being active, so only disjunctions
+	 * derived from the other ones are selected.
+	 */
+	protected boolean setOfSupport = false;
+	/**
+	 * Number of the first input disjunction, distinguishes the definitions
+	 * introduced for different input disjunctions
+	 */
+	protected int firstDisjunction = 1;
     
 	protected boolean isTautology;
+	/**
+	 * The empty disjunction, if found
+	 */
+	protected TraceEntry refutation;
+
+	protected TraceMode traceMode = TraceMode.FULL;
+	protected Backend backend = Backend.CDCL;
+	protected Clausification clausification = Clausification.EXPANSION;
+	protected int clausificationThreads = Runtime.getRuntime()
+			.availableProcessors();
+	protected int resolutionThreads = Runtime.getRuntime()
+			.availableProcessors();
+	/**
+	 * Maximum number of atoms for which the resolution backend works on
+	 * {@link BitsetDisjunction}s
+	 */
+	protected int bitsetAtomThreshold = 1024;
+
+	/**
+	 * Minimum number of resolution partners of a given disjunction for
+	 * generating its resolvents concurrently
+	 */
+	private static final int PARALLEL_RESOLUTION_THRESHOLD = 256;
+	private ExecutorService resolutionExecutor;
+	private boolean streaming = false;
+	private int traceLength = 0;
+
+	/**
+	 * Clausification of a single input {@link Disjunction} by its own
+	 * {@link Clausifier}, so that all of them can run concurrently
+	 */
+	private static class ClausifyTask implements Callable<Collection<Disjunction>> {
+		private final Clausifier clausifier;
+		private final Disjunction disjunction;
+		private Collection<Disjunction> result;
+
+		ClausifyTask(Clausifier clausifier, Disjunction disjunction) {
+			this.clausifier = clausifier;
+			this.disjunction = disjunction;
+		}
+
+		@Override
+		public Collection<Disjunction> call() {
+			result = clausifier.expand(disjunction);
+			return result;
+		}
+
+		boolean isFalse() {
+			return result.size() == 1 && result.iterator().next().isFalse();
+		}
+	}
+
+	/**
+	 * Generation of the resolvents of a given {@link AtomicDisjunction} with a
+	 * contiguous range of its partners. The active set is not modified while
+	 * these tasks run, so they read it without locking.
+	 */
+	private class ResolveTask implements Callable<List<AtomicDisjunction>> {
+		private final AtomicDisjunction given;
+		private final List<List<AtomicDisjunction>> partners;
+		private final int from;
+		private final int to;
+
+		ResolveTask(AtomicDisjunction given,
+				List<List<AtomicDisjunction>> partners, int from, int to) {
+			this.given = given;
+			this.partners = partners;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public List<AtomicDisjunction> call() {
+			List<AtomicDisjunction> resolvents = new ArrayList<AtomicDisjunction>(to
+					- from);
+			int offset = 0;
+			for (int i = 0; i < partners.size() && offset < to; i++) {
+				List<AtomicDisjunction> disjunctions = partners.get(i);
+				int end = offset + disjunctions.size();
+				for (int j = Math.max(from, offset); j < Math.min(to, end); j++) {
+					resolvents.add(generate(given, disjunctions.get(j - offset),
+							given.literals[i]));
+				}
+				offset = end;
+			}
+			return resolvents;
+		}
+	}
 
 	public PropositionalProver(Collection<Formula> axioms, Formula... conjectures) {
 		init(axioms, conjectures);
@@ -46,244 +187,707 @@ public class PropositionalProver {
 		init(axs, conjs.toArray(new Formula[0]));
 	}
 
+	/**
+	 * Creates a prover refuting the given conjectures together with the axioms
+	 * of the given session. New atoms are added to a table extending the
+	 * session's one, so proving leaves the session's atoms unchanged.
+	 * 
+	 * @param session
+	 * @param conjectures
+	 */
+	PropositionalProver(ProverSession session, Formula... conjectures) {
+		init(Collections.<Formula> emptyList(), conjectures);
+		this.session = session;
+		this.atomTable = new AtomTable(session.atomTable);
+		this.firstDisjunction = session.disjunctions + 1;
+	}
+
 	private void init(Collection<Formula> axioms, Formula... conjectures) {
-		trace = new LinkedList<Disjunction>();
-		seenDisjunctions = new HashSet<Disjunction>();
-		workingQueue = new PriorityQueue<Disjunction>();
-		resolutionMap = new HashMap<Formula, Set<Disjunction>>();
+		trace = new LinkedList<TraceEntry>();
+		proofSink = new TextProofSink(new BufferedWriter(new OutputStreamWriter(
+				System.out)));
+		atomTable = new AtomTable();
+		seenDisjunctions = new HashSet<AtomicDisjunction>();
+		passive = new AgeWeightSelection(1, 4);
+		active = new ActiveSet();
 		disjunctions = new ArrayList<Disjunction>(axioms.size()
 				+ conjectures.length);
 		isTautology = false;
+		refutation = null;
 
 		//add axioms
 		for (Formula axiom : axioms) {
 			Disjunction disjunction = new Disjunction(axiom);
 			disjunction.rule = Rule.AXIOM;
 			disjunctions.add(disjunction);
-			trace.add(disjunction);
+			addToTrace(disjunction);
 		}
 		//add negated conjectures
 		for (Formula conjecture : conjectures) {
 			Disjunction disjunction = new Disjunction(Util.negate(conjecture));
 			disjunction.rule = Rule.CONJECTURE;
 			disjunctions.add(disjunction);
-			trace.add(disjunction);
+			addToTrace(disjunction);
 		}
 	}
 
 	/**
 	 * Tries to prove the formula passed to this prover at creation by
-	 * disproving the negation of the formula.
+	 * disproving the negation of the formula. If one of the
+	 * {@link ResourceLimits} is reached, the proof is aborted and
+	 * {@link #getResult()} tells why.
 	 * 
 	 * @return <code>true</code> if the formula was proven, otherwise
 	 *         <code>false</code>
 	 */
 	public boolean prove() {
 		long starTime = System.currentTimeMillis();
-		System.out.println("\n----------- Propositional Proof -----------");
-		//expand all disjunctions
-		atoms = new LinkedList<Disjunction>();
-		for (Disjunction disjunction : disjunctions) {
-			seenDisjunctions.add(disjunction);
-			
-			Expander expander = new Expander();
-			Collection<Disjunction> expanded_formulae = expander.expand(disjunction);
-			atoms.addAll(expanded_formulae);
-			trace.addAll(expander.getTrace());
-			if (expanded_formulae.isEmpty()) {
-			  isTautology = true;
-			  break;
+		printStatus("\n----------- Propositional Proof -----------");
+		if (session != null
+				&& (backend == Backend.RESOLUTION || traceMode == TraceMode.FULL))
+			copyAxioms();
+		//from now on the trace is written while proving
+		traceLength = 0;
+		for (TraceEntry entry : trace)
+			writeTrace(entry);
+		trace.clear();
+		streaming = true;
+		try {
+			long start = listener != null ? System.nanoTime() : 0;
+			clausifyAndEncode();
+			if (listener != null) {
+				listener.phaseFinished(Phase.CLAUSIFICATION, System.nanoTime() - start);
+				start = System.nanoTime();
 			}
-			  
-			seenDisjunctions.addAll(expander.seenDisjunctions);
-		}
-		System.out.println("Got " + atoms.size()
-				+ " disjunctions containing atoms only.\nDoing resolution...");
-
+			int axioms = session != null ? session.axioms.size() : 0;
+			printStatus("Got " + (axioms + atoms.size())
+					+ " disjunctions containing atoms only.\nDoing " + backend.humanReadable + "...");
 
-		//do resolution
-		performResolution(atoms);
-		
+			if (backend == Backend.CDCL)
+				performSatSolving(atoms);
+			else
+				performResolution(atoms);
+			if (listener != null)
+				listener.phaseFinished(Phase.REFUTATION, System.nanoTime() - start);
+			result = isTautology ? ProofResult.VALID : ProofResult.NOT_VALID;
+		} catch (ResourceLimitException e) {
+			result = e.result;
+		} finally {
+			streaming = false;
+		}
 		
-		System.out.println("...done");
-		printTrace(trace);
-		System.out.println(String.format("\nResult: conjecture is %svalid\n\n+++++++++++ Time: %.3fs +++++++++++", isTautology ? "" : "not ", (System.currentTimeMillis()-starTime)/1000.0));
+		printStatus("...done");
+		if (traceMode == TraceMode.REFUTATION && refutation != null) {
+			traceLength = 0;
+			for (TraceEntry entry : getRefutation())
+				writeTrace(entry);
+		}
+		printStatus(String.format("\nResult: conjecture is %s\n\n+++++++++++ Time: %.3fs +++++++++++", result.humanReadable, (System.currentTimeMillis()-starTime)/1000.0));
 		return isTautology;
 	}
 
-	protected void performResolution(Collection<Disjunction> atoms2) {
-	  workingQueue.addAll(atoms2);
-	  while (!workingQueue.isEmpty() && !isTautology) {
-      Disjunction disjunction = workingQueue.poll();
-      updateResolutionMap(disjunction);
-      doResolution(disjunction);
-    }
-  }
-
-  public static void printTrace(List<Disjunction> trace) {
-		int commentIndent = Util.calculateCommentIndent(trace);
-		int indexLength = String.format("%d", trace.size()).length();
-		System.out.println();
-		
-		int i = 1;
-		//print whole trace
-		for (Disjunction disjunction : trace) {
-			disjunction.index = i++;
-			StringBuilder builder = new StringBuilder();
-			builder.append(disjunction.index);
-			builder.append(". ");
-
-			for (int j = String.format("%d", (disjunction.index)).length(); j < indexLength; j++) {
-				builder.append(" ");
+	/**
+	 * Expands all input disjunctions and encodes the results as the atoms. The
+	 * clausification stops once a false disjunction is found. Definitions of
+	 * the {@link DefinitionalClausifier}s are shared in the order of the input
+	 * disjunctions.
+	 */
+	void clausifyAndEncode() {
+		atoms = new LinkedList<AtomicDisjunction>();
+		Map<TraceEntry, TraceEntry> encoded = new IdentityHashMap<TraceEntry, TraceEntry>();
+		DefinitionalClausifier.Definitions definitions = new DefinitionalClausifier.Definitions(
+				firstDisjunction);
+		for (ClausifyTask task : clausify(disjunctions)) {
+			if (task.result == null)
+				break;
+			if (task.clausifier instanceof DefinitionalClausifier)
+				task.result = ((DefinitionalClausifier) task.clausifier).share(
+						task.result, definitions);
+			encoded.clear();
+			for (Disjunction expanded : task.result) {
+				AtomicDisjunction atomic = atomTable.encode(expanded);
+				//an input disjunction may have been written already
+				atomic.index = expanded.index;
+				encoded.put(expanded, atomic);
+				atoms.add(atomic);
+				if (atomic.isEmpty() && refutation == null) {
+					isTautology = true;
+					refutation = atomic;
+				}
+			}
+			//the trace shall show the encoded disjunctions resolution refers to
+			for (Disjunction entry : task.clausifier.getTrace()) {
+				if (listener != null)
+					listener.generated(entry);
+				TraceEntry replacement = encoded.get(entry);
+				addToTrace(replacement != null ? replacement : entry);
 			}
-			builder.append(disjunction.toString(commentIndent));
-			System.out.println(builder.toString());
+			if (isTautology)
+				break;
 		}
 	}
-	
-	
 
 	/**
-	 * Applies the resolution rule on all {@link Disjunction}s that share a
-	 * formula that is equal to one formula of the provided {@link Disjunction}
-	 * and adds the newly created {@link Disjunction}s to the working queue.
+	 * Clausifies every given {@link Disjunction} by its own {@link Clausifier}
+	 * using up to clausificationThreads threads. The tasks are returned in the
+	 * order of the given {@link Disjunction}s, so merging their results does
+	 * not depend on the scheduling. When clausifying sequentially, the tasks
+	 * following the first false result are not run.
 	 * 
-	 * @param disjunction
+	 * @param disjunctions
+	 * @return The tasks clausifying the given {@link Disjunction}s
 	 */
-	private void doResolution(Disjunction disjunction) {
-		for (Formula resolutionFormula : disjunction.formulae) {
-			Set<Disjunction> resolutionDisjunctions = resolutionMap.get(Util
-					.negate(resolutionFormula));
-			if (resolutionDisjunctions == null) {
-			  rest.add(disjunction);
-				continue;
-			}
-			//do resolution with all resolutions sharing the current formula
-			for (Disjunction d : resolutionDisjunctions) {
-				//if resolution disjunction is the same disjunction, it contains some A and ~A, so it is always true
-				if (d.equals(disjunction)) {
-					disjunction.formulae.clear();
-					disjunction.formulae.add(BooleanAtomic.TRUE);
-					disjunction.rule = Rule.RESOLUTION;
-					disjunction.origin.add(disjunction);
-					addToWorkingQueue(disjunction);
-					return; // disjunction is tautology
-				}
-				Disjunction resolvent = applyResolution(disjunction, d,
-						resolutionFormula);
-				addToWorkingQueue(resolvent);
-				
-				//check if prove is already finished
-				if (isTautology)
-					return;
+	private List<ClausifyTask> clausify(List<Disjunction> disjunctions) {
+		List<ClausifyTask> tasks = new ArrayList<ClausifyTask>(disjunctions.size());
+		for (int i = 0; i < disjunctions.size(); i++) {
+			Clausifier clausifier = clausification == Clausification.DEFINITIONAL ? new DefinitionalClausifier(
+					firstDisjunction + i) : new Expander(limits);
+			tasks.add(new ClausifyTask(clausifier, disjunctions.get(i)));
+		}
+		if (clausificationThreads <= 1 || tasks.size() <= 1) {
+			for (ClausifyTask task : tasks) {
+				task.call();
+				if (task.isFalse())
+					break;
 			}
+			return tasks;
 		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+				clausificationThreads, tasks.size()));
+		try {
+			invokeAll(executor, tasks);
+		} finally {
+			executor.shutdown();
+		}
+		return tasks;
 	}
 
 	/**
-	 * Updates the resolutionMap by adding the given {@link Disjunction}.
-	 * Associates all {@link Formula}e in the disjunction with it.
+	 * Runs the given tasks using the given {@link ExecutorService}, rethrowing
+	 * the first failure.
 	 * 
-	 * @param disjunction
+	 * @param executor
+	 * @param tasks
+	 * @return The results of the tasks in the order of the tasks
 	 */
-	private void updateResolutionMap(Disjunction disjunction) {
-		for (Formula formula : disjunction.formulae) {
-			Set<Disjunction> disjunctions = resolutionMap.get(formula);
-			if (disjunctions == null) {
-				disjunctions = new HashSet<Disjunction>();
-				resolutionMap.put(formula, disjunctions);
-			}
-			disjunctions.add(disjunction);
+	private static <T> List<T> invokeAll(ExecutorService executor,
+			List<? extends Callable<T>> tasks) {
+		List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			for (Future<T> future : executor.invokeAll(tasks))
+				results.add(future.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for workers", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
 		}
+		return results;
+	}
+
+	/**
+	 * Saturates the given {@link AtomicDisjunction}s using a given clause
+	 * loop: the best passive disjunction is selected, simplified, moved to the
+	 * active set and resolved against all active disjunctions, the resolvents
+	 * becoming passive. Only active disjunctions are indexed, passive ones are
+	 * checked against them once when generated and once more when selected.
+	 * Resolvents of a given disjunction with many active partners are
+	 * generated by up to resolutionThreads threads. If there are at most
+	 * bitsetAtomThreshold atoms, the disjunctions are converted to
+	 * {@link BitsetDisjunction}s first. With setOfSupport, the clausified
+	 * axioms are active from the start, otherwise they are passive like the
+	 * given disjunctions.
+	 * 
+	 * @param atoms2
+	 */
+	protected void performResolution(Collection<AtomicDisjunction> atoms2) {
+	  Collection<AtomicDisjunction> axioms = clausifiedAxioms;
+	  if (atomTable.size() <= bitsetAtomThreshold) {
+	    int words = (atomTable.size() + 63) >>> 6;
+	    axioms = toBitsets(axioms, words);
+	    atoms2 = toBitsets(atoms2, words);
+	  }
+	  if (setOfSupport) {
+	    for (AtomicDisjunction axiom : axioms) {
+	      if (!axiom.isTautology() && seenDisjunctions.add(axiom)) {
+	        if (listener != null)
+	          listener.kept(axiom);
+	        activate(axiom);
+	      }
+	    }
+	  } else {
+	    List<AtomicDisjunction> all = new ArrayList<AtomicDisjunction>(axioms);
+	    all.addAll(atoms2);
+	    atoms2 = all;
+	  }
+	  for (AtomicDisjunction disjunction : atoms2) {
+	    if (disjunction.isEmpty()) {
+	      isTautology = true;
+	      if (refutation == null)
+	        refutation = disjunction;
+	    } else if (disjunction.isTautology()) {
+	      if (listener != null)
+	        listener.deleted(disjunction, Deletion.TAUTOLOGY);
+	    } else if (!seenDisjunctions.add(disjunction)) {
+	      if (listener != null)
+	        listener.deleted(disjunction, Deletion.DUPLICATE);
+	    } else {
+	      if (listener != null)
+	        listener.kept(disjunction);
+	      passive.add(disjunction);
+	    }
+	  }
+	  if (resolutionThreads > 1)
+	    resolutionExecutor = Executors.newFixedThreadPool(resolutionThreads);
+	  try {
+	    while (!passive.isEmpty() && !isTautology) {
+	      if (limits != null)
+	        limits.check(active.size() + passive.size());
+	      AtomicDisjunction selected = passive.poll();
+	      AtomicDisjunction given = simplifyGiven(selected);
+	      if (given == null) {
+	        if (listener != null)
+	          listener.deleted(selected, Deletion.SUBSUMED);
+	        continue;
+	      }
+	      activate(given);
+	      doResolution(given);
+	    }
+	  } finally {
+	    if (resolutionExecutor != null)
+	      resolutionExecutor.shutdown();
+	    resolutionExecutor = null;
+	  }
+  }
+
+	private static List<AtomicDisjunction> toBitsets(
+			Collection<AtomicDisjunction> disjunctions, int words) {
+		List<AtomicDisjunction> converted = new ArrayList<AtomicDisjunction>(
+				disjunctions.size());
+		for (AtomicDisjunction disjunction : disjunctions)
+			converted.add(BitsetDisjunction.of(disjunction, words));
+		return converted;
 	}
 
 	/**
-	 * Applies the resolution rule on both provided {@link Disjunction}s
-	 * removing all positive and negated occurrences of the given
-	 * {@link Formula}.
+	 * Refutes the given {@link AtomicDisjunction}s and the axioms of the
+	 * session, if any, by searching for a satisfying assignment using a
+	 * {@link SatSolver}, the one of the session if there is a session. Only
+	 * the empty {@link AtomicDisjunction} is added to the trace, if there is no
+	 * such assignment.
 	 * 
-	 * @param disjunction1
-	 * @param disjunction2
-	 * @param form
-	 * @return A new {@link Disjunction} containing all {@link Formula}e of the
-	 *         two given {@link Disjunction}s except the provided
-	 *         {@link Formula} and negations of it.
-	 */
-	private Disjunction applyResolution(Disjunction disjunction1,
-			Disjunction disjunction2, Formula form) {
-		Set<Formula> newFormulae = new HashSet<Formula>();
-		for (Formula f : disjunction1.formulae) {
-			if (f.equals(form))
-				continue;
-			else if (f.getKind() == Kind.Negation)
-				if (((Negation) f).getArgument().equals(form))
-					continue;
-			newFormulae.add(f);
+	 * @param atoms2
+	 */
+	protected void performSatSolving(Collection<AtomicDisjunction> atoms2) {
+		if (isTautology)
+			return;
+		boolean refuted;
+		if (axiomSolver != null) {
+			refuted = axiomSolver.refute(atomTable, atoms2, limits, listener);
+		} else if (session != null) {
+			refuted = session.refute(atomTable, atoms2, limits, listener);
+		} else {
+			SatSolver solver = new SatSolver(atomTable.size());
+			solver.setResourceLimits(limits);
+			for (AtomicDisjunction disjunction : atoms2)
+				solver.addClause(disjunction);
+			refuted = !solver.solve();
+			if (listener != null)
+				listener.searchFinished(solver.getConflicts(), solver.getDecisions());
+		}
+		if (refuted) {
+			AtomicDisjunction empty = new AtomicDisjunction(atomTable, new int[0]);
+			empty.rule = Rule.CDCL;
+			if (listener != null)
+				listener.generated(empty);
+			addToTrace(empty);
+			isTautology = true;
+			refutation = empty;
+		}
+	}
+
+	/**
+	 * Copies the axioms of the session into the atomTable of this prover, as
+	 * resolution marks the disjunctions it works on. The axioms precede the
+	 * conjectures in the trace.
+	 */
+	private void copyAxioms() {
+		clausifiedAxioms = new ArrayList<AtomicDisjunction>(session.axioms.size());
+		for (AtomicDisjunction axiom : session.axioms) {
+			AtomicDisjunction copy = new AtomicDisjunction(atomTable, axiom);
+			copy.rule = Rule.AXIOM;
+			clausifiedAxioms.add(copy);
 		}
-		Disjunction resolvent = new Disjunction(newFormulae);
-		resolvent.rule = Rule.RESOLUTION;
-		resolvent.origin.add(disjunction1);
-		resolvent.origin.add(disjunction2);
-		for (Formula f : disjunction2.formulae) {
-			if (f.equals(form))
-				continue;
-			else if (f.getKind() == Kind.Negation)
-				if (((Negation) f).getArgument().equals(form))
-					continue;
-			// prevent positives and negatives in one disjunction
-			Formula negation = f.getKind() == Kind.Negation ? ((Negation) f)
-					.getArgument() : new Negation(f);
-			if (newFormulae.contains(negation)) {
-				newFormulae.clear();
-				newFormulae.add(BooleanAtomic.TRUE);
-				return resolvent;
+		if (traceMode == TraceMode.FULL)
+			trace.addAll(0, clausifiedAxioms);
+	}
+
+	/**
+	 * Reconstructs the derivation of the empty disjunction by following the
+	 * origins of the entries, so it is available in every {@link TraceMode}.
+	 * 
+	 * @return The entries the empty disjunction was derived from, each one
+	 *         following its origins, or an empty list if no empty disjunction
+	 *         was found
+	 */
+	public List<TraceEntry> getRefutation() {
+		List<TraceEntry> proof = new ArrayList<TraceEntry>();
+		if (refutation == null)
+			return proof;
+		//false while the origins are visited, true once added to the proof
+		Map<TraceEntry, Boolean> visited = new IdentityHashMap<TraceEntry, Boolean>();
+		Deque<TraceEntry> stack = new ArrayDeque<TraceEntry>();
+		stack.push(refutation);
+		while (!stack.isEmpty()) {
+			TraceEntry entry = stack.peek();
+			Boolean done = visited.get(entry);
+			if (done == null) {
+				visited.put(entry, false);
+				for (int i = entry.origin.size() - 1; i >= 0; i--) {
+					TraceEntry origin = entry.origin.get(i);
+					if (origin != null && !visited.containsKey(origin))
+						stack.push(origin);
+				}
 			} else {
-				newFormulae.add(f);
+				stack.pop();
+				if (!done) {
+					visited.put(entry, true);
+					proof.add(entry);
+				}
 			}
 		}
-		return resolvent;
+		return proof;
 	}
 
 	/**
-	 * Adds the provided {@link Disjunction} to the working queue and trace also
-	 * checking if this {@link Disjunction} is already a tautology or is already
-	 * empty.
+	 * Sets how much of the trace is kept and printed. Defaults to
+	 * {@link TraceMode#FULL}, other modes drop the entries kept so far.
 	 * 
-	 * @param disjunction
+	 * @param traceMode
 	 */
-	private void addToWorkingQueue(Disjunction disjunction) {
-		if (disjunction.isEmpty()) {
-			workingQueue.clear();
-			isTautology = true;
-			trace.add(disjunction);
+	public void setTraceMode(TraceMode traceMode) {
+		this.traceMode = traceMode;
+		if (traceMode != TraceMode.FULL)
+			trace.clear();
+	}
+
+	/**
+	 * Sets where the trace is written to while proving. Defaults to a
+	 * {@link TextProofSink} writing to {@link System#out}.
+	 * 
+	 * @param proofSink
+	 */
+	public void setProofSink(ProofSink proofSink) {
+		this.proofSink = proofSink;
+	}
+
+	/**
+	 * @return The result of the last call of {@link #prove()}, which is only
+	 *         unknown if one of the {@link ResourceLimits} was reached, or
+	 *         <code>null</code> if not proven yet
+	 */
+	public ProofResult getResult() {
+		return result;
+	}
+
+	/**
+	 * Sets the {@link ResourceLimits} checked while clausifying and refuting.
+	 * Defaults to none.
+	 * 
+	 * @param limits
+	 */
+	public void setResourceLimits(ResourceLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * Sets the {@link ProverListener} notified while proving, e.g. a
+	 * {@link ProverMetrics}. Defaults to none.
+	 * 
+	 * @param listener
+	 */
+	public void setProverListener(ProverListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the policy selecting the passive {@link AtomicDisjunction}s of the
+	 * resolution backend. Defaults to an {@link AgeWeightSelection} taking the
+	 * oldest disjunction once in five selections.
+	 * 
+	 * @param selection
+	 */
+	public void setClauseSelection(ClauseSelection selection) {
+		this.passive = selection;
+	}
+
+	/**
+	 * Selects how the disjunctions are transformed into disjunctions
+	 * containing atoms only. Defaults to {@link Clausification#EXPANSION}.
+	 * 
+	 * @param clausification
+	 */
+	public void setClausification(Clausification clausification) {
+		this.clausification = clausification;
+	}
+
+	/**
+	 * Sets the number of threads clausifying the input disjunctions
+	 * concurrently. Defaults to the number of available processors, 1
+	 * clausifies sequentially.
+	 * 
+	 * @param threads
+	 */
+	public void setClausificationThreads(int threads) {
+		this.clausificationThreads = threads;
+	}
+
+	/**
+	 * Sets the number of threads generating the resolvents of a given
+	 * disjunction concurrently. Defaults to the number of available
+	 * processors, 1 resolves sequentially.
+	 * 
+	 * @param threads
+	 */
+	public void setResolutionThreads(int threads) {
+		this.resolutionThreads = threads;
+	}
+
+	/**
+	 * Sets the maximum number of atoms for which the resolution backend
+	 * represents disjunctions as {@link BitsetDisjunction}s. Defaults to 1024,
+	 * 0 never uses them.
+	 * 
+	 * @param threshold
+	 */
+	public void setBitsetAtomThreshold(int threshold) {
+		this.bitsetAtomThreshold = threshold;
+	}
+
+	/**
+	 * Selects the procedure used to refute the disjunctions containing atoms
+	 * only. Defaults to {@link Backend#CDCL}.
+	 * 
+	 * @param backend
+	 */
+	public void setBackend(Backend backend) {
+		this.backend = backend;
+	}
+
+	/**
+	 * Adds the given entry to the trace if the whole trace is kept. While
+	 * proving, it is written to the proofSink right away.
+	 * 
+	 * @param entry
+	 */
+	protected void addToTrace(TraceEntry entry) {
+		if (traceMode != TraceMode.FULL)
 			return;
-		}
-		//always add tautologies to trace for traces of "none proves"
-		if (disjunction.isTautology()) {
-			trace.add(disjunction);
+		if (streaming)
+			writeTrace(entry);
+		else
+			trace.add(entry);
+	}
+
+	/**
+	 * Numbers the given entry and passes it to the proofSink.
+	 * 
+	 * @param entry
+	 */
+	private void writeTrace(TraceEntry entry) {
+		entry.index = ++traceLength;
+		proofSink.add(entry);
+	}
+
+	/**
+	 * Prints the given message below the trace written so far, unless the
+	 * {@link TraceMode} is {@link TraceMode#OFF}.
+	 * 
+	 * @param message
+	 */
+	protected void printStatus(String message) {
+		if (traceMode == TraceMode.OFF)
 			return;
+		proofSink.flush();
+		System.out.println(message);
+	}
+
+	/**
+	 * Numbers the given entries and prints them to {@link System#out} using a
+	 * {@link TextProofSink}.
+	 * 
+	 * @param trace
+	 */
+	public static void printTrace(List<TraceEntry> trace) {
+		ProofSink sink = new TextProofSink(new BufferedWriter(
+				new OutputStreamWriter(System.out)));
+		int i = 1;
+		for (TraceEntry entry : trace) {
+			entry.index = i++;
+			sink.add(entry);
+		}
+		sink.flush();
+	}
+
+	/**
+	 * Applies the resolution rule on the given {@link AtomicDisjunction} and
+	 * all active {@link AtomicDisjunction}s that contain the complement of one
+	 * of its literals and adds the resolvents to the passive ones. If there
+	 * are enough partners, the resolvents are generated concurrently and
+	 * merged in the same order as if generated sequentially.
+	 * 
+	 * @param given
+	 */
+	private void doResolution(AtomicDisjunction given) {
+		List<List<AtomicDisjunction>> partners = new ArrayList<List<AtomicDisjunction>>(
+				given.literals.length);
+		int count = 0;
+		for (int literal : given.literals) {
+			List<AtomicDisjunction> resolutionDisjunctions = active
+					.containing(AtomTable.negate(literal));
+			partners.add(resolutionDisjunctions);
+			count += resolutionDisjunctions.size();
 		}
-		if (seenDisjunctions.contains(disjunction))
+		if (resolutionExecutor != null && count >= PARALLEL_RESOLUTION_THRESHOLD) {
+			int chunk = (count + resolutionThreads - 1) / resolutionThreads;
+			List<ResolveTask> tasks = new ArrayList<ResolveTask>(resolutionThreads);
+			for (int from = 0; from < count; from += chunk)
+				tasks.add(new ResolveTask(given, partners, from, Math.min(count, from
+						+ chunk)));
+			for (List<AtomicDisjunction> resolvents : invokeAll(resolutionExecutor, tasks)) {
+				for (AtomicDisjunction resolvent : resolvents) {
+					addToPassive(resolvent);
+					if (isTautology)
+						return;
+				}
+			}
 			return;
-		addToTrace(disjunction);
-		seenDisjunctions.add(disjunction);
-		workingQueue.add(disjunction);
+		}
+		for (int i = 0; i < partners.size(); i++) {
+			//do resolution with all disjunctions containing the complement
+			for (AtomicDisjunction d : partners.get(i)) {
+				addToPassive(generate(given, d, given.literals[i]));
+
+				//check if prove is already finished
+				if (isTautology)
+					return;
+			}
+		}
 	}
 
 	/**
-	 * Adds the given {@link Disjunction} to the trace if there isn't already
-	 * such a {@link Disjunction} in the trace. Furthermore sets the index of
-	 * the {@link Disjunction}.
+	 * Resolves the given {@link AtomicDisjunction} with the given partner and
+	 * simplifies the resolvent unless it is empty or a tautology. A redundant
+	 * resolvent is flagged as {@link AtomicDisjunction#subsumed}. Only reads
+	 * the active set, so it may run concurrently for the same given
+	 * disjunction.
+	 * 
+	 * @param given
+	 * @param partner
+	 * @param literal
+	 *          literal of the given disjunction resolved upon
+	 * @return The simplified resolvent
+	 */
+	private AtomicDisjunction generate(AtomicDisjunction given,
+			AtomicDisjunction partner, int literal) {
+		AtomicDisjunction resolvent = given.resolve(partner, literal);
+		if (resolvent.isEmpty() || resolvent.isTautology())
+			return resolvent;
+		AtomicDisjunction simplified = simplifyGenerated(resolvent);
+		if (simplified == null)
+			resolvent.subsumed = true;
+		return simplified != null ? simplified : resolvent;
+	}
+
+	/**
+	 * Hook applied to every selected {@link AtomicDisjunction} before it
+	 * becomes active. Drops disjunctions subsumed by an active one.
+	 * 
+	 * @param given
+	 * @return The simplified {@link AtomicDisjunction} or <code>null</code> if
+	 *         it is redundant
+	 */
+	protected AtomicDisjunction simplifyGiven(AtomicDisjunction given) {
+		if (active.isSubsumed(given))
+			return null;
+		return given;
+	}
+
+	/**
+	 * Hook applied to every generated {@link AtomicDisjunction} before it
+	 * becomes passive. Drops disjunctions subsumed by an active one. May be
+	 * called by several threads at once, while the active set is not modified.
+	 * 
+	 * @param generated
+	 * @return The simplified {@link AtomicDisjunction} or <code>null</code> if
+	 *         it is redundant
+	 */
+	protected AtomicDisjunction simplifyGenerated(AtomicDisjunction generated) {
+		if (active.isSubsumed(generated))
+			return null;
+		return generated;
+	}
+
+	/**
+	 * Moves the given {@link AtomicDisjunction} to the active set, evicting
+	 * all active disjunctions subsumed by it.
+	 * 
+	 * @param given
+	 */
+	private void activate(AtomicDisjunction given) {
+		List<AtomicDisjunction> evicted = active.removeSubsumed(given);
+		active.add(given);
+		if (listener != null) {
+			for (AtomicDisjunction disjunction : evicted)
+				listener.deleted(disjunction, Deletion.BACKWARD_SUBSUMED);
+			listener.activated(given);
+		}
+	}
+
+	/**
+	 * Adds the provided generated {@link AtomicDisjunction} to the passive
+	 * ones and the trace also checking if this {@link AtomicDisjunction} is
+	 * already a tautology or is already empty. Subsumed and duplicate
+	 * disjunctions are discarded.
 	 * 
 	 * @param disjunction
 	 */
-	private void addToTrace(Disjunction disjunction) {
+	private void addToPassive(AtomicDisjunction disjunction) {
+		if (listener != null)
+			listener.generated(disjunction);
 		if (disjunction.isEmpty()) {
+			if (listener != null)
+				listener.kept(disjunction);
+			passive.clear();
 			isTautology = true;
-			workingQueue.clear();
+			refutation = disjunction;
+			addToTrace(disjunction);
 			return;
 		}
-		if (!seenDisjunctions.contains(disjunction))
-			trace.add(disjunction);
+		//always add tautologies to trace for traces of "none proves"
+		if (disjunction.isTautology()) {
+			if (listener != null)
+				listener.deleted(disjunction, Deletion.TAUTOLOGY);
+			addToTrace(disjunction);
+			return;
+		}
+		if (disjunction.subsumed) {
+			if (listener != null)
+				listener.deleted(disjunction, Deletion.SUBSUMED);
+			return;
+		}
+		if (!seenDisjunctions.add(disjunction)) {
+			if (listener != null)
+				listener.deleted(disjunction, Deletion.DUPLICATE);
+			return;
+		}
+		if (listener != null)
+			listener.kept(disjunction);
+		addToTrace(disjunction);
+		passive.add(disjunction);
 	}
 }
@@ -0,0 +1,60 @@
+package resolutionprover;
+
+/**
+ * Receives the events of a {@link PropositionalProver} while proving. All
+ * methods are called by the thread running
+ * {@link PropositionalProver#prove()}, even if the work is done by several
+ * threads.
+ */
+public interface ProverListener {
+
+  /**
+   * Called once a phase is done.
+   *
+   * @param phase
+   * @param nanos
+   *          time spent in the phase in nanoseconds
+   */
+  void phaseFinished(Phase phase, long nanos);
+
+  /**
+   * Called for every entry derived by one of the {@link Rule}s, including
+   * those discarded afterwards.
+   *
+   * @param entry
+   */
+  void generated(TraceEntry entry);
+
+  /**
+   * Called for every {@link AtomicDisjunction} kept for refutation.
+   *
+   * @param disjunction
+   */
+  void kept(AtomicDisjunction disjunction);
+
+  /**
+   * Called for every {@link AtomicDisjunction} moved to the active ones by
+   * resolution, after the active ones it subsumes are deleted.
+   *
+   * @param disjunction
+   */
+  void activated(AtomicDisjunction disjunction);
+
+  /**
+   * Called for every {@link AtomicDisjunction} discarded.
+   *
+   * @param disjunction
+   * @param reason
+   */
+  void deleted(AtomicDisjunction disjunction, Deletion reason);
+
+  /**
+   * Called once the {@link SatSolver} is done searching.
+   *
+   * @param conflicts
+   *          number of conflicts analyzed
+   * @param decisions
+   *          number of decisions made
+   */
+  void searchFinished(long conflicts, long decisions);
+}
@@ -0,0 +1,114 @@
+package resolutionprover;
+
+/**
+ * {@link ProverListener} counting the generated, kept, activated and deleted
+ * disjunctions, the applications of every {@link Rule}, the conflicts and
+ * decisions of the {@link SatSolver} and the time spent in every
+ * {@link Phase}.
+ */
+public class ProverMetrics implements ProverListener {
+
+  private final long[] applications = new long[Rule.values().length];
+  private final long[] deletions = new long[Deletion.values().length];
+  private final long[] nanos = new long[Phase.values().length];
+  private long generated = 0;
+  private long kept = 0;
+  private long activated = 0;
+  private long conflicts = 0;
+  private long decisions = 0;
+
+  @Override
+  public void phaseFinished(Phase phase, long nanos) {
+    this.nanos[phase.ordinal()] += nanos;
+  }
+
+  @Override
+  public void generated(TraceEntry entry) {
+    generated++;
+    if (entry.rule != null)
+      applications[entry.rule.ordinal()]++;
+  }
+
+  @Override
+  public void kept(AtomicDisjunction disjunction) {
+    kept++;
+  }
+
+  @Override
+  public void activated(AtomicDisjunction disjunction) {
+    activated++;
+  }
+
+  @Override
+  public void deleted(AtomicDisjunction disjunction, Deletion reason) {
+    deletions[reason.ordinal()]++;
+  }
+
+  @Override
+  public void searchFinished(long conflicts, long decisions) {
+    this.conflicts += conflicts;
+    this.decisions += decisions;
+  }
+
+  public long getGenerated() {
+    return generated;
+  }
+
+  public long getKept() {
+    return kept;
+  }
+
+  public long getActivated() {
+    return activated;
+  }
+
+  public long getDeleted(Deletion reason) {
+    return deletions[reason.ordinal()];
+  }
+
+  public long getConflicts() {
+    return conflicts;
+  }
+
+  public long getDecisions() {
+    return decisions;
+  }
+
+  /**
+   * @param rule
+   * @return Number of entries derived by the given {@link Rule}
+   */
+  public long getApplications(Rule rule) {
+    return applications[rule.ordinal()];
+  }
+
+  /**
+   * @param phase
+   * @return Time spent in the given {@link Phase} in nanoseconds
+   */
+  public long getNanos(Phase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(String.format("%d generated, %d kept, %d activated",
+        generated, kept, activated));
+    for (Deletion reason : Deletion.values())
+      builder.append(String.format(", %d %s", getDeleted(reason),
+          reason.humanReadable));
+    for (Rule rule : Rule.values())
+      if (getApplications(rule) > 0)
+        builder.append(String.format("\n%s: %d", rule.humanReadable,
+            getApplications(rule)));
+    if (conflicts > 0 || decisions > 0)
+      builder.append(String.format("\n%d conflicts, %d decisions", conflicts,
+          decisions));
+    for (Phase phase : Phase.values())
+      if (getNanos(phase) > 0)
+        builder.append(String.format("\n%s: %.3fms", phase.humanReadable,
+            getNanos(phase) / 1e6));
+    return builder.toString();
+  }
+}
@@ -0,0 +1,376 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import tptp.Formula;
+
+/**
+ * Long-lived context for proving many conjectures from the same axioms. The
+ * axioms are clausified and encoded once when they are added. Every query
+ * gets its own {@link PropositionalProver} working on an {@link AtomTable}
+ * extending the session's one, so the atoms of a conjecture are dropped with
+ * its prover.
+ * <p>
+ * The session keeps a {@link SatSolver} holding the axioms, which also
+ * decides once whether they are satisfiable. The CDCL backend of a query adds
+ * the disjunctions of the conjectures to it for an activation literal,
+ * assumes the literal while solving and releases it afterwards, so the solver
+ * keeps the clauses learned from the axioms for the following queries. Single
+ * queries take turns on this solver, whereas every thread of
+ * {@link #proveEach(List)} works on a solver of its own, which is kept for
+ * later batches.
+ * <p>
+ * The resolution backend of a query works on copies of the axioms, since it
+ * marks the disjunctions it selects. If the axioms are satisfiable, it only
+ * selects disjunctions derived from the conjectures, the axioms being active
+ * from the start. Adding axioms must not overlap with running queries, but
+ * queries may run concurrently otherwise.
+ */
+public class ProverSession {
+
+  final AtomTable atomTable;
+  final List<AtomicDisjunction> axioms;
+  Clausification clausification = Clausification.EXPANSION;
+  /**
+   * Number of input disjunctions clausified so far
+   */
+  int disjunctions;
+  /**
+   * Whether the axioms are satisfiable, <code>null</code> if not known yet
+   */
+  volatile Boolean satisfiable;
+  /**
+   * Solver of the single queries, created when needed
+   */
+  private AxiomSolver solver;
+  /**
+   * Solvers of the {@link #proveEach(List)} threads not in use
+   */
+  private final Queue<AxiomSolver> batchSolvers = new ConcurrentLinkedQueue<AxiomSolver>();
+  private ProverListener listener;
+  private int queryThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * {@link SatSolver} holding the axioms of the session, which refutes the
+   * disjunctions of one query at a time
+   */
+  static class AxiomSolver {
+    private final SatSolver solver;
+    /**
+     * Number of axioms of the session added to the solver
+     */
+    private int axioms = 0;
+
+    AxiomSolver(int numAtoms) {
+      solver = new SatSolver(numAtoms);
+    }
+
+    /**
+     * Adds the axioms following the ones added before.
+     *
+     * @param axioms
+     *          all axioms of the session
+     */
+    void update(List<AtomicDisjunction> axioms) {
+      for (; this.axioms < axioms.size(); this.axioms++)
+        solver.addClause(axioms.get(this.axioms));
+    }
+
+    /**
+     * @return <code>true</code> if the axioms are satisfiable
+     */
+    boolean solve() {
+      return solver.solve();
+    }
+
+    /**
+     * Refutes the given disjunctions of a query together with the axioms.
+     * The disjunctions are added for an activation literal whose atom
+     * follows the atoms of the query, which is released once solving is
+     * done.
+     *
+     * @param queryTable
+     *          {@link AtomTable} of the query extending the session's one
+     * @param disjunctions
+     * @param limits
+     *          {@link ResourceLimits} of the query, may be <code>null</code>
+     * @param listener
+     *          notified about the search, may be <code>null</code>
+     * @return <code>true</code> if the disjunctions and the axioms are
+     *         unsatisfiable
+     * @throws ResourceLimitException
+     *           if one of the {@link ResourceLimits} is reached
+     */
+    boolean refute(AtomTable queryTable,
+        Collection<AtomicDisjunction> disjunctions, ResourceLimits limits,
+        ProverListener listener) {
+      int activation = AtomTable.positive(queryTable.size());
+      long conflicts = solver.getConflicts();
+      long decisions = solver.getDecisions();
+      boolean satisfiable;
+      solver.setResourceLimits(limits);
+      try {
+        for (AtomicDisjunction disjunction : disjunctions)
+          solver.addClause(disjunction, activation);
+        satisfiable = solver.solve(activation);
+      } finally {
+        solver.setResourceLimits(null);
+        solver.release(activation);
+      }
+      if (listener != null)
+        listener.searchFinished(solver.getConflicts() - conflicts, solver
+            .getDecisions()
+            - decisions);
+      return !satisfiable;
+    }
+  }
+
+  /**
+   * Proof of a single conjecture of {@link #proveEach(List)}
+   */
+  private class Query implements Callable<ProofResult> {
+    private final PropositionalProver prover;
+
+    Query(PropositionalProver prover) {
+      this.prover = prover;
+    }
+
+    @Override
+    public ProofResult call() {
+      if (prover.backend != Backend.CDCL) {
+        prover.prove();
+        return prover.getResult();
+      }
+      AxiomSolver solver = batchSolvers.poll();
+      if (solver == null)
+        solver = new AxiomSolver(atomTable.size());
+      solver.update(axioms);
+      prover.axiomSolver = solver;
+      try {
+        prover.prove();
+      } finally {
+        batchSolvers.add(solver);
+      }
+      return prover.getResult();
+    }
+  }
+
+  public ProverSession() {
+    this(new AtomTable(), new ArrayList<AtomicDisjunction>(), 0, Boolean.TRUE);
+  }
+
+  /**
+   * Creates a session and adds the given axioms.
+   *
+   * @param axioms
+   */
+  public ProverSession(Collection<Formula> axioms) {
+    this();
+    addAxioms(axioms);
+  }
+
+  /**
+   * Creates a session from axioms clausified before, e.g. by a
+   * {@link ProblemSnapshot}.
+   *
+   * @param atomTable
+   *          {@link AtomTable} the axioms are encoded with
+   * @param axioms
+   * @param disjunctions
+   *          number of input disjunctions the axioms were clausified from
+   * @param satisfiable
+   *          whether the axioms are satisfiable, <code>null</code> if not
+   *          known
+   */
+  ProverSession(AtomTable atomTable, List<AtomicDisjunction> axioms,
+      int disjunctions, Boolean satisfiable) {
+    this.atomTable = atomTable;
+    this.axioms = axioms;
+    this.disjunctions = disjunctions;
+    this.satisfiable = satisfiable;
+  }
+
+  /**
+   * Clausifies the given axioms and adds them to the ones every conjecture is
+   * proven from.
+   *
+   * @param axioms
+   */
+  public synchronized void addAxioms(Collection<Formula> axioms) {
+    PropositionalProver prover = new PropositionalProver(axioms);
+    prover.atomTable = atomTable;
+    prover.firstDisjunction = disjunctions + 1;
+    prover.setTraceMode(TraceMode.OFF);
+    prover.setClausification(clausification);
+    prover.clausifyAndEncode();
+    this.axioms.addAll(prover.atoms);
+    disjunctions += axioms.size();
+    if (prover.isTautology)
+      satisfiable = Boolean.FALSE;
+    else if (satisfiable == Boolean.TRUE && !axioms.isEmpty())
+      satisfiable = null;
+  }
+
+  /**
+   * Creates the prover of a query for the given conjectures. It may be
+   * configured before calling {@link PropositionalProver#prove()}, except
+   * for the clausification, which is the session's one.
+   *
+   * @param conjectures
+   * @return The {@link PropositionalProver} proving the given conjectures from
+   *         the axioms of this session
+   */
+  public PropositionalProver newQuery(Formula... conjectures) {
+    PropositionalProver prover = new PropositionalProver(this, conjectures);
+    prover.setClausification(clausification);
+    prover.setOfSupport = isSatisfiable();
+    return prover;
+  }
+
+  /**
+   * Proves the given conjectures from the axioms of this session using the
+   * default configuration of the {@link PropositionalProver}.
+   *
+   * @param conjectures
+   * @return <code>true</code> if the conjectures were proven
+   */
+  public boolean prove(Formula... conjectures) {
+    return newQuery(conjectures).prove();
+  }
+
+  /**
+   * Proves every given conjecture on its own from the axioms of this session,
+   * running up to queryThreads queries at once. Each query works single
+   * threaded and writes no trace. The CDCL backend of every thread refutes
+   * on a solver of its own holding a copy of the axioms.
+   *
+   * @param conjectures
+   * @return The results of the queries in the order of the conjectures
+   */
+  public List<ProofResult> proveEach(List<Formula> conjectures) {
+    // decided before the queries run, so they only read the session
+    isSatisfiable();
+    List<Query> queries = new ArrayList<Query>(conjectures.size());
+    for (Formula conjecture : conjectures) {
+      PropositionalProver prover = newQuery(conjecture);
+      prover.setTraceMode(TraceMode.OFF);
+      prover.setClausificationThreads(1);
+      prover.setResolutionThreads(1);
+      prover.setProverListener(listener);
+      queries.add(new Query(prover));
+    }
+    List<ProofResult> results = new ArrayList<ProofResult>(queries.size());
+    if (queryThreads <= 1 || queries.size() <= 1) {
+      for (Query query : queries)
+        results.add(query.call());
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+        queryThreads, queries.size()));
+    try {
+      for (Future<ProofResult> result : executor.invokeAll(queries))
+        results.add(result.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for queries", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      if (e.getCause() instanceof Error)
+        throw (Error) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * Sets the number of queries {@link #proveEach(List)} runs at once
+   * (defaults to the number of available processors).
+   *
+   * @param threads
+   */
+  public void setQueryThreads(int threads) {
+    this.queryThreads = threads;
+  }
+
+  /**
+   * Sets the {@link ProverListener} of the queries of
+   * {@link #proveEach(List)}, which notify it concurrently.
+   *
+   * @param listener
+   *          thread-safe listener or <code>null</code>
+   */
+  public void setProverListener(ProverListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Selects how axioms and conjectures are transformed into disjunctions
+   * containing atoms only. Defaults to {@link Clausification#EXPANSION} and
+   * only affects axioms added afterwards.
+   *
+   * @param clausification
+   */
+  public void setClausification(Clausification clausification) {
+    this.clausification = clausification;
+  }
+
+  /**
+   * @return The clausified axioms of this session, which are not to be
+   *         modified
+   */
+  public List<AtomicDisjunction> getAxioms() {
+    return Collections.unmodifiableList(axioms);
+  }
+
+  /**
+   * Refutes the given disjunctions of a single query on the solver of this
+   * session.
+   *
+   * @see AxiomSolver#refute(AtomTable, Collection, ResourceLimits,
+   *      ProverListener)
+   */
+  synchronized boolean refute(AtomTable queryTable,
+      Collection<AtomicDisjunction> disjunctions, ResourceLimits limits,
+      ProverListener listener) {
+    return solver().refute(queryTable, disjunctions, limits, listener);
+  }
+
+  /**
+   * @return The solver of the single queries holding all axioms
+   */
+  private AxiomSolver solver() {
+    if (solver == null)
+      solver = new AxiomSolver(atomTable.size());
+    solver.update(axioms);
+    return solver;
+  }
+
+  /**
+   * Checks the axioms with the solver of this session once after they
+   * changed. Once known, the answer is given without waiting for queries
+   * using the solver.
+   */
+  private boolean isSatisfiable() {
+    Boolean known = satisfiable;
+    if (known != null)
+      return known;
+    synchronized (this) {
+      if (satisfiable == null)
+        satisfiable = solver().solve();
+      return satisfiable;
+    }
+  }
+}
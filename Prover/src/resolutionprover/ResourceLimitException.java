@@ -0,0 +1,20 @@
+package resolutionprover;
+
+/**
+ * Thrown by {@link ResourceLimits#check(long)} to abort a proof once a limit
+ * is reached.
+ */
+public class ResourceLimitException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The unknown result the aborted proof ends with
+   */
+  public final ProofResult result;
+
+  public ResourceLimitException(ProofResult result) {
+    super(result.humanReadable);
+    this.result = result;
+  }
+}
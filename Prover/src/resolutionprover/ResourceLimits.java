@@ -0,0 +1,88 @@
+package resolutionprover;
+
+/**
+ * Limits on the resources a proof may use. The long running loops check them
+ * cooperatively by calling {@link #check(long)}, so a proof ends shortly
+ * after a limit is reached or {@link #cancel()} is called from any thread.
+ * By default, nothing is limited.
+ */
+public class ResourceLimits {
+
+  private volatile long deadline = Long.MAX_VALUE;
+  private volatile long maxKeptClauses = Long.MAX_VALUE;
+  private volatile long maxHeapBytes = Long.MAX_VALUE;
+  private volatile boolean cancelled = false;
+
+  /**
+   * @param deadline
+   *          wall-clock time in milliseconds as returned by
+   *          {@link System#currentTimeMillis()}
+   */
+  public void setDeadline(long deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Sets the deadline to the given number of milliseconds from now.
+   *
+   * @param millis
+   */
+  public void setTimeout(long millis) {
+    this.deadline = System.currentTimeMillis() + millis;
+  }
+
+  /**
+   * @param maxKeptClauses
+   *          maximum number of disjunctions kept at once, see
+   *          {@link #check(long)}
+   */
+  public void setMaxKeptClauses(long maxKeptClauses) {
+    this.maxKeptClauses = maxKeptClauses;
+  }
+
+  /**
+   * @param maxHeapBytes
+   *          maximum number of bytes used on the heap, estimated from the
+   *          memory the {@link Runtime} reports as not free
+   */
+  public void setMaxHeapBytes(long maxHeapBytes) {
+    this.maxHeapBytes = maxHeapBytes;
+  }
+
+  /**
+   * Requests the proofs using these limits to stop.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Checks all limits.
+   *
+   * @param keptClauses
+   *          number of disjunctions the caller currently holds to work on or
+   *          as result, i.e. the pending and expanded ones of an
+   *          {@link Expander}, the active and passive ones of resolution and
+   *          the original and learnt ones of a {@link SatSolver}. Disjunctions
+   *          only remembered to detect duplicates are not counted.
+   * @throws ResourceLimitException
+   *           if a limit is reached
+   */
+  public void check(long keptClauses) {
+    if (cancelled)
+      throw new ResourceLimitException(ProofResult.CANCELLED);
+    if (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline)
+      throw new ResourceLimitException(ProofResult.TIMEOUT);
+    if (keptClauses > maxKeptClauses)
+      throw new ResourceLimitException(ProofResult.RESOURCE_OUT);
+    if (maxHeapBytes != Long.MAX_VALUE) {
+      Runtime runtime = Runtime.getRuntime();
+      if (runtime.totalMemory() - runtime.freeMemory() > maxHeapBytes)
+        throw new ResourceLimitException(ProofResult.RESOURCE_OUT);
+    }
+  }
+}
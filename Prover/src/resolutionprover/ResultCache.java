@@ -0,0 +1,282 @@
+package resolutionprover;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import tptp.AnnotatedFormula;
+import tptp.TptpParserOutput.FormulaRole;
+
+/**
+ * Content-addressed cache of proof results in a local directory. Problems are
+ * identified by {@link #key(Collection)}, a hash of their formulae that
+ * neither depends on the names of the formulae nor on their order. Every
+ * entry is a gzip compressed file holding the {@link ProofResult} and
+ * optionally the proof. Once the entries exceed the size bound, the least
+ * recently used ones are deleted, the use being recorded in the modification
+ * time of the files.
+ * <p>
+ * Entries are written to a temporary file and renamed, so several processes
+ * may share a directory.
+ */
+public class ResultCache {
+
+  private static final String SUFFIX = ".gz";
+  private static final String CHARSET = "UTF-8";
+
+  /**
+   * Entry file with its size and last use at the time it was listed, so
+   * that other processes touching it do not affect the order of eviction
+   */
+  private static class Entry implements Comparable<Entry> {
+    final File file;
+    final long length;
+    final long used;
+
+    Entry(File file) {
+      this.file = file;
+      length = file.length();
+      used = file.lastModified();
+    }
+
+    @Override
+    public int compareTo(Entry o) {
+      if (used != o.used)
+        return used < o.used ? -1 : 1;
+      return file.getName().compareTo(o.file.getName());
+    }
+  }
+
+  private final File directory;
+  private final long maxBytes;
+
+  /**
+   * @param directory
+   *          directory holding the entries, created if missing
+   * @param maxBytes
+   *          maximum number of bytes of all entries together
+   * @throws IOException
+   *           if the directory cannot be created
+   */
+  public ResultCache(File directory, long maxBytes) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs())
+      throw new IOException("Cannot create cache directory " + directory);
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Computes the SHA-256 hash of the given formulae, each one rendered
+   * together with whether it is a conjecture. Bound variables are hashed by
+   * name, which is canonical since the parser renames them per formula in
+   * the order of their quantifiers. The renderings are sorted before
+   * hashing, so neither the names of the formulae nor their order matter.
+   *
+   * @param formulae
+   * @return The hash as hexadecimal string
+   */
+  public static String key(Collection<AnnotatedFormula> formulae) {
+    List<String> renderings = new ArrayList<String>(formulae.size());
+    for (AnnotatedFormula af : formulae) {
+      StringBuilder rendering = new StringBuilder(
+          af.getRole() == FormulaRole.Conjecture ? "conjecture " : "axiom ");
+      rendering.append(af.getFormula());
+      renderings.add(rendering.toString());
+    }
+    Collections.sort(renderings);
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+      for (String rendering : renderings) {
+        digest.update(rendering.getBytes(CHARSET));
+        digest.update((byte) '\n');
+      }
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest())
+      hex.append(String.format("%02x", b & 0xFF));
+    return hex.toString();
+  }
+
+  /**
+   * Looks up the result of the problem with the given key and marks the
+   * entry as used.
+   *
+   * @param key
+   * @return The cached {@link ProofResult} or <code>null</code> if there is
+   *         none
+   */
+  public ProofResult get(String key) {
+    String[] entry = read(key, false);
+    return entry != null ? ProofResult.valueOf(entry[0]) : null;
+  }
+
+  /**
+   * Looks up the proof of the problem with the given key and marks the entry
+   * as used.
+   *
+   * @param key
+   * @return The cached proof or <code>null</code> if there is none
+   */
+  public String getProof(String key) {
+    String[] entry = read(key, true);
+    return entry != null ? entry[1] : null;
+  }
+
+  /**
+   * Stores the result of the problem with the given key and evicts the least
+   * recently used entries exceeding the size bound. Unknown results are not
+   * stored, since another attempt may have more resources.
+   *
+   * @param key
+   * @param result
+   * @param proof
+   *          may be <code>null</code>
+   * @throws IOException
+   *           if the entry cannot be written
+   */
+  public void put(String key, ProofResult result, String proof)
+      throws IOException {
+    if (!result.isKnown())
+      return;
+    File temporary = File.createTempFile(key, ".tmp", directory);
+    Writer writer = new OutputStreamWriter(new GZIPOutputStream(
+        new FileOutputStream(temporary)), CHARSET);
+    try {
+      writer.write(result.name());
+      writer.write('\n');
+      if (proof != null)
+        writer.write(proof);
+    } finally {
+      writer.close();
+    }
+    File file = file(key);
+    if (!temporary.renameTo(file)) {
+      file.delete();
+      if (!temporary.renameTo(file)) {
+        temporary.delete();
+        throw new IOException("Cannot write cache entry " + file);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Proves the given problem unless its result is cached, caching the result
+   * and the refutation afterwards.
+   *
+   * @param formulae
+   * @return The {@link ProofResult} of the problem
+   * @throws IOException
+   *           if the result cannot be cached
+   */
+  public ProofResult prove(List<AnnotatedFormula> formulae) throws IOException {
+    String key = key(formulae);
+    ProofResult cached = get(key);
+    if (cached != null)
+      return cached;
+    StringWriter proof = new StringWriter();
+    PropositionalProver prover = new PropositionalProver(
+        formulae.toArray(new AnnotatedFormula[0]));
+    prover.setTraceMode(TraceMode.REFUTATION);
+    prover.setProofSink(new TextProofSink(proof));
+    prover.prove();
+    put(key, prover.getResult(), proof.getBuffer().length() > 0 ? proof
+        .toString() : null);
+    return prover.getResult();
+  }
+
+  private File file(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+  /**
+   * Reads the entry with the given key, treating unreadable entries as
+   * missing. Unless the proof is requested, only the first line holding the
+   * result is decompressed.
+   *
+   * @param key
+   * @param withProof
+   *          whether to read the proof as well
+   * @return The name of the result and the proof or <code>null</code>
+   */
+  private String[] read(String key, boolean withProof) {
+    File file = file(key);
+    if (!file.isFile())
+      return null;
+    StringBuilder proof = new StringBuilder();
+    String result;
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(
+          new GZIPInputStream(new FileInputStream(file)), CHARSET));
+      try {
+        result = reader.readLine();
+        if (withProof) {
+          char[] buffer = new char[8192];
+          int read;
+          while ((read = reader.read(buffer)) != -1)
+            proof.append(buffer, 0, read);
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    if (result == null || !isResult(result))
+      return null;
+    file.setLastModified(System.currentTimeMillis());
+    return new String[] { result, proof.length() > 0 ? proof.toString() : null };
+  }
+
+  private static boolean isResult(String name) {
+    for (ProofResult result : ProofResult.values())
+      if (result.name().equals(name))
+        return true;
+    return false;
+  }
+
+  /**
+   * Deletes the least recently used entries until the remaining ones fit into
+   * the size bound.
+   */
+  private void evict() {
+    File[] files = directory.listFiles();
+    if (files == null)
+      return;
+    long bytes = 0;
+    List<Entry> entries = new ArrayList<Entry>(files.length);
+    for (File file : files) {
+      if (file.getName().endsWith(SUFFIX)) {
+        Entry entry = new Entry(file);
+        entries.add(entry);
+        bytes += entry.length;
+      }
+    }
+    if (bytes <= maxBytes)
+      return;
+    Collections.sort(entries);
+    for (int i = 0; i < entries.size() && bytes > maxBytes; i++) {
+      if (entries.get(i).file.delete())
+        bytes -= entries.get(i).length;
+    }
+  }
+}
@@ -11,10 +11,13 @@ public enum Rule {
 	AXIOM("axiom"),
 	CONJECTURE("conjecture"),
 	RESOLUTION("resolution rule"),
+	CDCL("conflict driven clause learning"),
 	SKOLEMIZATION("skolemization"),
 	DROP_ALL("dropping all-quantifier"),
 	PRENEX("prenex"),
-	BOOLEAN("boolean");
+	BOOLEAN("boolean"),
+	CLAUSIFICATION("definitional clausification"),
+	DEFINITION("definition");
 	
 	public final String humanReadable;
 
@@ -0,0 +1,708 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conflict driven clause learning SAT solver working on the int literals of
+ * an {@link AtomTable}. Unit propagation uses two watched literals per clause,
+ * decisions follow a VSIDS like activity heuristic with phase saving, the
+ * search is restarted following the Luby sequence and learned clauses of low
+ * activity are deleted periodically.
+ * <p>
+ * The solver is incremental: clauses may be added between calls of
+ * {@link #solve(int...)}, which keeps the learned clauses. Clauses added for
+ * an activation literal only hold while it is assumed, releasing the literal
+ * removes them together with the clauses learned from them.
+ */
+public class SatSolver {
+
+  private static final byte UNDEF = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = -1;
+
+  private static final int RESTART_BASE = 100;
+  private static final double VAR_DECAY = 0.95;
+  private static final double CLAUSE_DECAY = 0.999;
+  private static final double LEARNTS_GROWTH = 1.1;
+
+  /**
+   * Clause of the solver, the first two literals are the watched ones. For a
+   * clause that is the reason of an assignment the first literal is the
+   * implied one.
+   */
+  private static class Clause {
+    final int[] literals;
+    final boolean learnt;
+    double activity;
+    boolean deleted;
+
+    Clause(int[] literals, boolean learnt) {
+      this.literals = literals;
+      this.learnt = learnt;
+    }
+  }
+
+  private static final int[] NO_ASSUMPTIONS = new int[0];
+
+  /**
+   * Number of atoms in use, the arrays indexed by atoms may be longer
+   */
+  private int numAtoms = 0;
+
+  /**
+   * Value of every literal, both polarities are kept up to date
+   */
+  private byte[] values = new byte[0];
+  private int[] levels = new int[0];
+  private Clause[] reasons = new Clause[0];
+  /**
+   * Saved phase of every atom, <code>true</code> for negative
+   */
+  private boolean[] polarity = new boolean[0];
+  private boolean[] seen = new boolean[0];
+
+  /**
+   * Clauses watching a literal, checked when the literal becomes false
+   */
+  private final List<List<Clause>> watches;
+  private final List<Clause> clauses = new ArrayList<Clause>();
+  private final List<Clause> learnts = new ArrayList<Clause>();
+  /**
+   * Clauses added for every activation literal
+   */
+  private final Map<Integer, List<Clause>> guarded = new HashMap<Integer, List<Clause>>();
+  private int guardedCount = 0;
+
+  private int[] trail = new int[0];
+  private int trailSize = 0;
+  private int propagationHead = 0;
+  private final List<Integer> trailLimits = new ArrayList<Integer>();
+
+  private double[] activity = new double[0];
+  private double varIncrement = 1;
+  private double clauseIncrement = 1;
+  private final VarOrder order = new VarOrder();
+  /**
+   * Literals decided first by the running search, one per decision level
+   */
+  private int[] assumptions = NO_ASSUMPTIONS;
+
+  private double maxLearnts;
+  private boolean ok = true;
+  private ResourceLimits limits;
+
+  private long conflicts = 0;
+  private long decisions = 0;
+
+  /**
+   * @param numAtoms
+   *          number of atoms of the {@link AtomTable} the clauses refer to,
+   *          clauses of further atoms make room for them
+   */
+  public SatSolver(int numAtoms) {
+    watches = new ArrayList<List<Clause>>(2 * numAtoms);
+    ensureAtoms(numAtoms);
+  }
+
+  /**
+   * Adds the given {@link AtomicDisjunction} to the clauses to satisfy.
+   * Tautologies are ignored.
+   *
+   * @param disjunction
+   */
+  public void addClause(AtomicDisjunction disjunction) {
+    addClause(disjunction, -1);
+  }
+
+  /**
+   * Adds the given {@link AtomicDisjunction} to the clauses to satisfy as
+   * long as the given activation literal is assumed. The literal must not
+   * occur in other clauses and may be used for further clauses until it is
+   * released.
+   *
+   * @param disjunction
+   * @param activation
+   *          activation literal or -1 to add the clause for good
+   * @see #release(int)
+   */
+  public void addClause(AtomicDisjunction disjunction, int activation) {
+    if (!ok || disjunction.isTautology())
+      return;
+    int[] literals = Arrays.copyOf(disjunction.literals,
+        disjunction.literals.length + (activation < 0 ? 0 : 1));
+    if (activation >= 0)
+      literals[literals.length - 1] = AtomTable.negate(activation);
+    int maxAtom = -1;
+    for (int literal : literals)
+      maxAtom = Math.max(maxAtom, AtomTable.atom(literal));
+    ensureAtoms(maxAtom + 1);
+    // the solver is on decision level zero, whose assignments are final
+    int size = 0;
+    for (int literal : literals) {
+      byte value = value(literal);
+      if (value == TRUE)
+        return;
+      if (value == UNDEF)
+        literals[size++] = literal;
+    }
+    if (size == 0) {
+      ok = false;
+    } else if (size == 1) {
+      enqueue(literals[0], null);
+    } else {
+      Clause clause = new Clause(Arrays.copyOf(literals, size), false);
+      attach(clause);
+      if (activation < 0) {
+        clauses.add(clause);
+      } else {
+        List<Clause> activated = guarded.get(activation);
+        if (activated == null)
+          guarded.put(activation, activated = new ArrayList<Clause>());
+        activated.add(clause);
+        guardedCount++;
+      }
+    }
+  }
+
+  /**
+   * Removes the clauses added for the given activation literal and the
+   * clauses learned from them. Afterwards the atom of the literal is free
+   * again, like the atoms only occurring in the removed clauses.
+   *
+   * @param activation
+   */
+  public void release(int activation) {
+    List<Clause> activated = guarded.remove(activation);
+    if (activated != null) {
+      for (Clause clause : activated)
+        clause.deleted = true;
+      guardedCount -= activated.size();
+    }
+    // learned clauses depending on an assumption contain its negation
+    int negated = AtomTable.negate(activation);
+    int j = 0;
+    for (int i = 0; i < learnts.size(); i++) {
+      Clause clause = learnts.get(i);
+      if (contains(clause.literals, negated))
+        clause.deleted = true;
+      else
+        learnts.set(j++, clause);
+    }
+    learnts.subList(j, learnts.size()).clear();
+    // unless the negation was learned as unit on decision level zero
+    int atom = AtomTable.atom(activation);
+    if (atom < numAtoms && value(activation) != UNDEF) {
+      j = 0;
+      for (int i = 0; i < trailSize; i++) {
+        if (AtomTable.atom(trail[i]) != atom)
+          trail[j++] = trail[i];
+        else if (i < propagationHead)
+          propagationHead--;
+      }
+      trailSize = j;
+      values[activation] = UNDEF;
+      values[negated] = UNDEF;
+      reasons[atom] = null;
+      if (!order.contains(atom))
+        order.insert(atom);
+    }
+  }
+
+  /**
+   * Sets the {@link ResourceLimits} checked every 256 conflicts while
+   * solving.
+   *
+   * @param limits
+   */
+  public void setResourceLimits(ResourceLimits limits) {
+    this.limits = limits;
+  }
+
+  /**
+   * Searches for an assignment satisfying all added clauses and the given
+   * assumptions. The solver keeps the clauses learned on the way, except for
+   * the ones depending on released activation literals.
+   *
+   * @param assumptions
+   *          literals assigned before any decision, e.g. activation literals
+   * @return <code>true</code> if the clauses are satisfiable under the
+   *         assumptions, <code>false</code> if they are unsatisfiable
+   * @throws ResourceLimitException
+   *           if one of the {@link ResourceLimits} is reached
+   */
+  public boolean solve(int... assumptions) {
+    if (!ok)
+      return false;
+    for (int assumption : assumptions)
+      ensureAtoms(AtomTable.atom(assumption) + 1);
+    this.assumptions = assumptions;
+    maxLearnts = Math.max(maxLearnts, Math.max(
+        (clauses.size() + guardedCount) / 3.0, 1000));
+    try {
+      for (int restarts = 0;; restarts++) {
+        byte status = search(luby(restarts) * RESTART_BASE);
+        if (status != UNDEF)
+          return status == TRUE;
+      }
+    } finally {
+      this.assumptions = NO_ASSUMPTIONS;
+      cancelUntil(0);
+    }
+  }
+
+  public long getConflicts() {
+    return conflicts;
+  }
+
+  public long getDecisions() {
+    return decisions;
+  }
+
+  /**
+   * Assigns and propagates the assumptions and decisions until all atoms are
+   * assigned, a conflict occurs on decision level zero, an assumption is
+   * refuted or the given number of conflicts is reached.
+   *
+   * @param conflictLimit
+   * @return {@link #TRUE} if satisfiable, {@link #FALSE} if unsatisfiable
+   *         and {@link #UNDEF} if the search has to be restarted
+   */
+  private byte search(long conflictLimit) {
+    long conflictCount = 0;
+    List<Integer> learnt = new ArrayList<Integer>();
+    while (true) {
+      Clause conflict = propagate();
+      if (conflict != null) {
+        conflicts++;
+        conflictCount++;
+        if (limits != null && (conflicts & 0xFF) == 0)
+          limits.check(clauses.size() + guardedCount + learnts.size());
+        if (decisionLevel() == 0) {
+          ok = false;
+          return FALSE;
+        }
+        learnt.clear();
+        int backtrackLevel = analyze(conflict, learnt);
+        cancelUntil(backtrackLevel);
+        int[] literals = new int[learnt.size()];
+        for (int i = 0; i < literals.length; i++)
+          literals[i] = learnt.get(i);
+        if (literals.length == 1) {
+          enqueue(literals[0], null);
+        } else {
+          Clause clause = new Clause(literals, true);
+          attach(clause);
+          learnts.add(clause);
+          bumpClause(clause);
+          enqueue(literals[0], clause);
+        }
+        varIncrement /= VAR_DECAY;
+        clauseIncrement /= CLAUSE_DECAY;
+      } else {
+        if (conflictCount >= conflictLimit) {
+          cancelUntil(0);
+          return UNDEF;
+        }
+        if (learnts.size() - trailSize >= maxLearnts) {
+          reduceLearnts();
+          maxLearnts *= LEARNTS_GROWTH;
+        }
+        int next = -1;
+        while (next < 0 && decisionLevel() < assumptions.length) {
+          int assumption = assumptions[decisionLevel()];
+          if (value(assumption) == FALSE)
+            return FALSE;
+          if (value(assumption) == TRUE)
+            // keep one decision level per assumption
+            trailLimits.add(trailSize);
+          else
+            next = assumption;
+        }
+        if (next < 0) {
+          int atom = pickBranchAtom();
+          if (atom < 0)
+            return TRUE;
+          decisions++;
+          next = polarity[atom] ? AtomTable.negative(atom) : AtomTable
+              .positive(atom);
+        }
+        trailLimits.add(trailSize);
+        enqueue(next, null);
+      }
+    }
+  }
+
+  /**
+   * Propagates all enqueued assignments.
+   *
+   * @return The conflicting {@link Clause} or <code>null</code> if there is
+   *         no conflict
+   */
+  private Clause propagate() {
+    while (propagationHead < trailSize) {
+      int falseLiteral = AtomTable.negate(trail[propagationHead++]);
+      List<Clause> watchers = watches.get(falseLiteral);
+      int size = watchers.size();
+      int i = 0, j = 0;
+      while (i < size) {
+        Clause clause = watchers.get(i++);
+        if (clause.deleted)
+          continue;
+        int[] literals = clause.literals;
+        // make sure the false literal is the second one
+        if (literals[0] == falseLiteral) {
+          literals[0] = literals[1];
+          literals[1] = falseLiteral;
+        }
+        if (value(literals[0]) == TRUE) {
+          watchers.set(j++, clause);
+          continue;
+        }
+        // look for a new literal to watch
+        boolean moved = false;
+        for (int k = 2; k < literals.length; k++) {
+          if (value(literals[k]) != FALSE) {
+            literals[1] = literals[k];
+            literals[k] = falseLiteral;
+            watches.get(literals[1]).add(clause);
+            moved = true;
+            break;
+          }
+        }
+        if (moved)
+          continue;
+        // clause is unit or conflicting
+        watchers.set(j++, clause);
+        if (value(literals[0]) == FALSE) {
+          while (i < size)
+            watchers.set(j++, watchers.get(i++));
+          watchers.subList(j, size).clear();
+          propagationHead = trailSize;
+          return clause;
+        }
+        enqueue(literals[0], clause);
+      }
+      watchers.subList(j, size).clear();
+    }
+    return null;
+  }
+
+  /**
+   * Derives the first unique implication point clause of the given conflict.
+   * The asserting literal is put first, the literal of the backtrack level
+   * second.
+   *
+   * @param conflict
+   * @param learnt
+   *          receives the literals of the learned clause
+   * @return Decision level to backtrack to
+   */
+  private int analyze(Clause conflict, List<Integer> learnt) {
+    learnt.add(-1);
+    int pathCount = 0;
+    int literal = -1;
+    int index = trailSize - 1;
+    Clause clause = conflict;
+    do {
+      if (clause.learnt)
+        bumpClause(clause);
+      int[] literals = clause.literals;
+      for (int k = literal < 0 ? 0 : 1; k < literals.length; k++) {
+        int atom = AtomTable.atom(literals[k]);
+        if (!seen[atom] && levels[atom] > 0) {
+          bumpAtom(atom);
+          seen[atom] = true;
+          if (levels[atom] >= decisionLevel())
+            pathCount++;
+          else
+            learnt.add(literals[k]);
+        }
+      }
+      while (!seen[AtomTable.atom(trail[index--])])
+        ;
+      literal = trail[index + 1];
+      clause = reasons[AtomTable.atom(literal)];
+      seen[AtomTable.atom(literal)] = false;
+      pathCount--;
+    } while (pathCount > 0);
+    learnt.set(0, AtomTable.negate(literal));
+
+    // drop literals implied by other literals of the learned clause
+    int[] analyzed = new int[learnt.size()];
+    int size = 1;
+    for (int i = 1; i < learnt.size(); i++) {
+      analyzed[i] = AtomTable.atom(learnt.get(i));
+      if (reasons[analyzed[i]] == null || !isImplied(reasons[analyzed[i]]))
+        learnt.set(size++, learnt.get(i));
+    }
+    for (int i = 1; i < analyzed.length; i++)
+      seen[analyzed[i]] = false;
+    learnt.subList(size, learnt.size()).clear();
+
+    if (learnt.size() == 1)
+      return 0;
+    int max = 1;
+    for (int i = 2; i < learnt.size(); i++) {
+      if (levels[AtomTable.atom(learnt.get(i))] > levels[AtomTable
+          .atom(learnt.get(max))])
+        max = i;
+    }
+    int second = learnt.get(max);
+    learnt.set(max, learnt.get(1));
+    learnt.set(1, second);
+    return levels[AtomTable.atom(second)];
+  }
+
+  private boolean isImplied(Clause reason) {
+    int[] literals = reason.literals;
+    for (int k = 1; k < literals.length; k++) {
+      int atom = AtomTable.atom(literals[k]);
+      if (!seen[atom] && levels[atom] > 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Deletes the less active half of the learned clauses, keeping binary
+   * clauses and clauses that are currently the reason of an assignment.
+   */
+  private void reduceLearnts() {
+    Collections.sort(learnts, new Comparator<Clause>() {
+      @Override
+      public int compare(Clause c1, Clause c2) {
+        return Double.compare(c1.activity, c2.activity);
+      }
+    });
+    int half = learnts.size() / 2;
+    int j = 0;
+    for (int i = 0; i < learnts.size(); i++) {
+      Clause clause = learnts.get(i);
+      if (i < half && clause.literals.length > 2 && !isLocked(clause))
+        clause.deleted = true;
+      else
+        learnts.set(j++, clause);
+    }
+    learnts.subList(j, learnts.size()).clear();
+  }
+
+  private boolean isLocked(Clause clause) {
+    int literal = clause.literals[0];
+    return reasons[AtomTable.atom(literal)] == clause
+        && value(literal) == TRUE;
+  }
+
+  private int pickBranchAtom() {
+    while (!order.isEmpty()) {
+      int atom = order.removeMax();
+      if (values[AtomTable.positive(atom)] == UNDEF)
+        return atom;
+    }
+    return -1;
+  }
+
+  /**
+   * Makes room for the atoms below the given number.
+   *
+   * @param atoms
+   */
+  private void ensureAtoms(int atoms) {
+    if (atoms <= numAtoms)
+      return;
+    if (atoms > levels.length) {
+      int capacity = Math.max(atoms, 2 * levels.length);
+      values = Arrays.copyOf(values, 2 * capacity);
+      levels = Arrays.copyOf(levels, capacity);
+      reasons = Arrays.copyOf(reasons, capacity);
+      polarity = Arrays.copyOf(polarity, capacity);
+      seen = Arrays.copyOf(seen, capacity);
+      trail = Arrays.copyOf(trail, capacity);
+      activity = Arrays.copyOf(activity, capacity);
+      order.grow(activity, capacity);
+    }
+    for (int atom = numAtoms; atom < atoms; atom++) {
+      watches.add(new ArrayList<Clause>());
+      watches.add(new ArrayList<Clause>());
+      polarity[atom] = true;
+      order.insert(atom);
+    }
+    numAtoms = atoms;
+  }
+
+  private static boolean contains(int[] literals, int literal) {
+    for (int l : literals)
+      if (l == literal)
+        return true;
+    return false;
+  }
+
+  private void attach(Clause clause) {
+    watches.get(clause.literals[0]).add(clause);
+    watches.get(clause.literals[1]).add(clause);
+  }
+
+  private void enqueue(int literal, Clause reason) {
+    int atom = AtomTable.atom(literal);
+    values[literal] = TRUE;
+    values[AtomTable.negate(literal)] = FALSE;
+    levels[atom] = decisionLevel();
+    reasons[atom] = reason;
+    trail[trailSize++] = literal;
+  }
+
+  private void cancelUntil(int level) {
+    if (decisionLevel() <= level)
+      return;
+    int limit = trailLimits.get(level);
+    for (int i = trailSize - 1; i >= limit; i--) {
+      int literal = trail[i];
+      int atom = AtomTable.atom(literal);
+      values[literal] = UNDEF;
+      values[AtomTable.negate(literal)] = UNDEF;
+      reasons[atom] = null;
+      polarity[atom] = AtomTable.isNegative(literal);
+      if (!order.contains(atom))
+        order.insert(atom);
+    }
+    trailSize = limit;
+    propagationHead = limit;
+    trailLimits.subList(level, trailLimits.size()).clear();
+  }
+
+  private int decisionLevel() {
+    return trailLimits.size();
+  }
+
+  private byte value(int literal) {
+    return values[literal];
+  }
+
+  private void bumpAtom(int atom) {
+    activity[atom] += varIncrement;
+    if (activity[atom] > 1e100) {
+      for (int i = 0; i < numAtoms; i++)
+        activity[i] *= 1e-100;
+      varIncrement *= 1e-100;
+    }
+    if (order.contains(atom))
+      order.increased(atom);
+  }
+
+  private void bumpClause(Clause clause) {
+    clause.activity += clauseIncrement;
+    if (clause.activity > 1e20) {
+      for (Clause learnt : learnts)
+        learnt.activity *= 1e-20;
+      clauseIncrement *= 1e-20;
+    }
+  }
+
+  /**
+   * @param i
+   * @return The i-th element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+   */
+  private static long luby(int i) {
+    int size = 1, sequence = 0;
+    while (size < i + 1) {
+      sequence++;
+      size = 2 * size + 1;
+    }
+    while (size - 1 != i) {
+      size = (size - 1) >> 1;
+      sequence--;
+      i = i % size;
+    }
+    return 1L << sequence;
+  }
+
+  /**
+   * Binary max heap of atoms ordered by their activity.
+   */
+  private static class VarOrder {
+    private double[] activity = new double[0];
+    private int[] heap = new int[0];
+    private int[] positions = new int[0];
+    private int size = 0;
+
+    /**
+     * Makes room for the given number of atoms.
+     *
+     * @param activity
+     *          activities of the atoms, replacing the previous array
+     * @param capacity
+     */
+    void grow(double[] activity, int capacity) {
+      this.activity = activity;
+      int length = positions.length;
+      heap = Arrays.copyOf(heap, capacity);
+      positions = Arrays.copyOf(positions, capacity);
+      Arrays.fill(positions, length, capacity, -1);
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    boolean contains(int atom) {
+      return positions[atom] >= 0;
+    }
+
+    void insert(int atom) {
+      heap[size] = atom;
+      positions[atom] = size;
+      up(size++);
+    }
+
+    void increased(int atom) {
+      up(positions[atom]);
+    }
+
+    int removeMax() {
+      int max = heap[0];
+      positions[max] = -1;
+      if (--size > 0) {
+        heap[0] = heap[size];
+        positions[heap[0]] = 0;
+        down(0);
+      }
+      return max;
+    }
+
+    private void up(int i) {
+      int atom = heap[i];
+      while (i > 0) {
+        int parent = (i - 1) >> 1;
+        if (activity[heap[parent]] >= activity[atom])
+          break;
+        heap[i] = heap[parent];
+        positions[heap[i]] = i;
+        i = parent;
+      }
+      heap[i] = atom;
+      positions[atom] = i;
+    }
+
+    private void down(int i) {
+      int atom = heap[i];
+      while (2 * i + 1 < size) {
+        int child = 2 * i + 1;
+        if (child + 1 < size
+            && activity[heap[child + 1]] > activity[heap[child]])
+          child++;
+        if (activity[heap[child]] <= activity[atom])
+          break;
+        heap[i] = heap[child];
+        positions[heap[i]] = i;
+        i = child;
+      }
+      heap[i] = atom;
+      positions[atom] = i;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package resolutionprover;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the trace in the human readable format, one numbered entry per line
+ * followed by a comment about its origin. The widths used for aligning the
+ * numbers and comments only grow with the entries written so far, since the
+ * longest entry is not known in advance.
+ */
+public class TextProofSink implements ProofSink {
+
+  private static final String LINE_SEPARATOR = System
+      .getProperty("line.separator");
+
+  private final Writer writer;
+  private int indexLength = 1;
+  private int commentIndent = 0;
+
+  /**
+   * @param writer
+   *          should be buffered, it is flushed but not closed
+   */
+  public TextProofSink(Writer writer) {
+    this.writer = writer;
+  }
+
+  @Override
+  public void add(TraceEntry entry) {
+    String index = Integer.toString(entry.index);
+    String literals = entry.literalsToString();
+    String comment = entry.commentToString();
+    indexLength = Math.max(indexLength, index.length());
+    commentIndent = Math.max(commentIndent, literals.length() + 2);
+    try {
+      writer.write(index);
+      writer.write(". ");
+      pad(indexLength - index.length());
+      writer.write(literals);
+      if (comment != null) {
+        pad(commentIndent - literals.length());
+        writer.write(comment);
+      }
+      writer.write(LINE_SEPARATOR);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not write trace", e);
+    }
+  }
+
+  @Override
+  public void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not write trace", e);
+    }
+  }
+
+  private void pad(int length) throws IOException {
+    for (int i = 0; i < length; i++)
+      writer.write(' ');
+  }
+}
@@ -0,0 +1,75 @@
+package resolutionprover;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Common base of everything that shows up in a proof trace, i.e. the
+ * {@link Disjunction}s of the expansion phase and the
+ * {@link AtomicDisjunction}s of the resolution phase.
+ */
+public abstract class TraceEntry {
+
+  /**
+   * Index of this entry in the trace
+   */
+  public int index = -1;
+
+  /**
+   * Entries that are the origin for this entry
+   */
+  public List<TraceEntry> origin = new ArrayList<TraceEntry>();
+
+  /**
+   * Rule that produced this entry
+   */
+  public Rule rule;
+
+  /**
+   * @return String representation of the literals of this entry without any
+   *         comment about its origin
+   */
+  public abstract String literalsToString();
+
+  /**
+   * @return Comment about the origin of this entry or <code>null</code> if
+   *         there is none
+   */
+  public String commentToString() {
+    if (rule == null || origin == null)
+      return null;
+    if (rule == Rule.AXIOM || rule == Rule.CONJECTURE || origin.isEmpty())
+      return String.format("(%s)", rule.humanReadable);
+    return String.format("(from %s by applying %s)",
+        Util.collectionToString(originIndizes()), rule.humanReadable);
+  }
+
+  @Override
+  public String toString() {
+    String literalsString = literalsToString();
+    String comment = commentToString();
+    if (comment == null)
+      return literalsString;
+    return literalsString + "  " + comment;
+  }
+
+  public String toString(int commentIndent) {
+    String literalsString = literalsToString();
+    String comment = commentToString();
+    if (comment == null)
+      return literalsString;
+    StringBuilder builder = new StringBuilder(literalsString);
+    for (int i = literalsString.length(); i < commentIndent; i++)
+      builder.append(" ");
+    return builder.append(comment).toString();
+  }
+
+  private Set<Integer> originIndizes() {
+    Set<Integer> originIndizes = new HashSet<Integer>();
+    for (TraceEntry entry : origin)
+      originIndizes.add(entry.index);
+    return originIndizes;
+  }
+}
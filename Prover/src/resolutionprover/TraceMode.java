@@ -0,0 +1,22 @@
+package resolutionprover;
+
+/**
+ * Amount of the proof trace the {@link PropositionalProver} keeps and prints.
+ */
+public enum TraceMode {
+
+	/**
+	 * Neither keeps nor prints a trace or any status, the result is only
+	 * returned
+	 */
+	OFF,
+	/**
+	 * Keeps no trace while searching, but reconstructs and prints the
+	 * derivation of the empty disjunction from the origins of its entries
+	 */
+	REFUTATION,
+	/**
+	 * Keeps and prints every disjunction derived
+	 */
+	FULL
+}
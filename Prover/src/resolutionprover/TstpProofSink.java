@@ -0,0 +1,141 @@
+package resolutionprover;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Iterator;
+
+import tptp.Formula;
+import tptp.Kind;
+import tptp.Negation;
+
+/**
+ * Writes the trace as a TSTP derivation. {@link AtomicDisjunction}s become
+ * <code>cnf</code> and all other entries <code>fof</code> annotated formulae
+ * named <code>c</code> followed by their index, whose inference records refer
+ * to the origins written before.
+ */
+public class TstpProofSink implements ProofSink {
+
+  private static final String LINE_SEPARATOR = System
+      .getProperty("line.separator");
+
+  private final Writer writer;
+
+  /**
+   * @param writer
+   *          should be buffered, it is flushed but not closed
+   */
+  public TstpProofSink(Writer writer) {
+    this.writer = writer;
+  }
+
+  @Override
+  public void add(TraceEntry entry) {
+    StringBuilder builder = new StringBuilder();
+    if (entry instanceof AtomicDisjunction) {
+      builder.append("cnf(c").append(entry.index).append(", ").append(role(entry))
+          .append(", ");
+      appendClause(builder, ((AtomicDisjunction) entry).getFormulae());
+    } else {
+      builder.append("fof(c").append(entry.index).append(", ").append(role(entry))
+          .append(", ");
+      appendFormula(builder, ((Disjunction) entry).formulae);
+    }
+    appendSource(builder, entry);
+    builder.append(").").append(LINE_SEPARATOR);
+    try {
+      writer.write(builder.toString());
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not write trace", e);
+    }
+  }
+
+  @Override
+  public void flush() {
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not write trace", e);
+    }
+  }
+
+  private static String role(TraceEntry entry) {
+    if (entry.rule == Rule.AXIOM)
+      return "axiom";
+    if (entry.rule == Rule.CONJECTURE)
+      return "negated_conjecture";
+    return "plain";
+  }
+
+  /**
+   * Appends the literals of a clause, where negations are written without
+   * parentheses.
+   */
+  private static void appendClause(StringBuilder builder,
+      Collection<Formula> literals) {
+    if (literals.isEmpty()) {
+      builder.append("$false");
+      return;
+    }
+    Iterator<Formula> iterator = literals.iterator();
+    while (iterator.hasNext()) {
+      Formula literal = iterator.next();
+      if (literal.getKind() == Kind.Negation)
+        builder.append("~ ").append(((Negation) literal).getArgument());
+      else
+        builder.append(literal);
+      if (iterator.hasNext())
+        builder.append(" | ");
+    }
+  }
+
+  /**
+   * Appends the disjunction of the given formulae, where quantified formulae
+   * are parenthesized.
+   */
+  private static void appendFormula(StringBuilder builder,
+      Collection<Formula> formulae) {
+    if (formulae.isEmpty()) {
+      builder.append("$false");
+      return;
+    }
+    Iterator<Formula> iterator = formulae.iterator();
+    while (iterator.hasNext()) {
+      Formula formula = iterator.next();
+      if (formula.getKind() == Kind.Quantified)
+        builder.append('(').append(formula).append(')');
+      else
+        builder.append(formula);
+      if (iterator.hasNext())
+        builder.append(" | ");
+    }
+  }
+
+  /**
+   * Appends the inference record of a derived entry, definitions and
+   * skolemization only preserve satisfiability.
+   */
+  private static void appendSource(StringBuilder builder, TraceEntry entry) {
+    if (entry.rule == null || entry.rule == Rule.AXIOM
+        || entry.rule == Rule.CONJECTURE)
+      return;
+    boolean equisatisfiable = entry.rule == Rule.DEFINITION
+        || entry.rule == Rule.CLAUSIFICATION
+        || entry.rule == Rule.SKOLEMIZATION;
+    builder.append(", inference(").append(entry.rule.name().toLowerCase())
+        .append(", [status(").append(equisatisfiable ? "esa" : "thm")
+        .append(")], [");
+    boolean first = true;
+    for (TraceEntry origin : entry.origin) {
+      // origins not written to the trace cannot be referred to
+      if (origin == null || origin.index < 0)
+        continue;
+      if (!first)
+        builder.append(", ");
+      builder.append('c').append(origin.index);
+      first = false;
+    }
+    builder.append("])");
+  }
+}
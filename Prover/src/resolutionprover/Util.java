@@ -8,7 +8,7 @@ import java.util.Set;
 import tptp.AnnotatedFormula;
 import tptp.BooleanAtomic;
 import tptp.Formula;
-import tptp.Kind;
+import tptp.FormulaFactory;
 import tptp.Negation;
 import tptp.TptpParserOutput.Quantifier;
 
@@ -31,32 +31,17 @@ public class Util {
 		return builder.toString();
 	}
 
-	public static int calculateCommentIndent(Collection<Disjunction> disjunctions) {
-		int maxLength = 0;
-		for (Disjunction disjunction : disjunctions) {
-			int length = disjunction.formulae.toString().length();
-			if (length > maxLength)
-				maxLength = length;
-		}
-		return maxLength + 2;
-	}
-
 	/**
-	 * Negates the given {@link Formula} by either creating a new 
+	 * Negates the given {@link Formula} by either returning the shared
 	 * {@link Negation} if the {@link Formula} isn't a {@link Negation} itself
 	 * or returning the argument of the {@link Negation}. Therefore no double
 	 * {@link Negation} can be created using this method.
+	 * @see FormulaFactory#complement(Formula)
 	 * @param formula
 	 * @return The semantic negation of the provided {@link Formula}.
 	 */
 	public static Formula negate(Formula formula) {
-		Formula negFormula;
-		if (formula.getKind() == Kind.Negation) {
-			negFormula = ((Negation)formula).getArgument();
-		} else {
-			negFormula = new Negation(formula);
-		}
-		return negFormula;
+		return FormulaFactory.complement(formula);
 	}
 	
 	public static BooleanAtomic negate(BooleanAtomic booleanAtomic) {
@@ -98,9 +83,9 @@ public class Util {
 	 * @param replacedForm
 	 * @param newForm
 	 * @return A new {@link Set} containing all {@link Formula}e from the
-	 * provided set except replacedForm
+	 * provided collection except replacedForm
 	 */
-	public static Set<Formula> replaceElement(Set<Formula> formulae, Formula replacedForm, Formula newForm) {
+	public static Set<Formula> replaceElement(Collection<Formula> formulae, Formula replacedForm, Formula newForm) {
 		Set<Formula> newFormulae = new HashSet<Formula>(formulae);
 		newFormulae.remove(replacedForm);
 		//positives and negatives in one disjunction => true, therefore ignore whole disjunction
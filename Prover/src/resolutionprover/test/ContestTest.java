@@ -1,7 +1,6 @@
 package resolutionprover.test;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.List;
 
 import org.junit.BeforeClass;
@@ -12,7 +11,7 @@ import antlr.TokenStreamException;
 
 import resolutionprover.PropositionalProver;
 import tptp.AnnotatedFormula;
-import static resolutionprover.test.ResolutionProverTest.parseReader;
+import static resolutionprover.test.ResolutionProverTest.parseFile;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -23,7 +22,7 @@ public class ContestTest {
 
   @BeforeClass
   public static void setupFormulas() throws RecognitionException,
-      TokenStreamException, FileNotFoundException {
+      TokenStreamException, IOException {
     phil = parseFile("test/contest/ContestTheorems/Philosophen.p");
     sudoku = parseFile("test/contest/ContestTheorems/SudokuTheorem1.p");
     miami = parseFile("test/contest/ContestTheorems/MiamiDegree.p");
@@ -61,9 +60,4 @@ public class ContestTest {
         .prove();
   }
 
-  private static List<AnnotatedFormula> parseFile(String filename)
-      throws RecognitionException, TokenStreamException, FileNotFoundException {
-    return parseReader(new FileReader(filename));
-  }
-
 }
@@ -0,0 +1,59 @@
+package resolutionprover.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static resolutionprover.test.ResolutionProverTest.parseFormula;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import resolutionprover.Disjunction;
+import tptp.Formula;
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+
+public class DisjunctionTest {
+
+	@Test
+	public void disjunctionShouldBeCanonical() throws RecognitionException,
+			TokenStreamException {
+		Formula p = parseFormula("p(a)").getFormula();
+		Formula q = parseFormula("~q").getFormula();
+		Formula r = parseFormula("r(X)").getFormula();
+		Disjunction first = new Disjunction(p, q, r);
+		Disjunction second = new Disjunction(r, parseFormula("~q").getFormula(),
+				p, parseFormula("p(a)").getFormula());
+		Disjunction other = new Disjunction(p, q);
+		// equal formulae are shared and kept once in the same order
+		assertEquals(3, second.formulae.size());
+		assertEquals(first.formulae, second.formulae);
+		for (int i = 0; i < first.formulae.size(); i++)
+			assertSame(first.formulae.get(i), second.formulae.get(i));
+		assertEquals(first, second);
+		assertEquals(first.hashCode(), second.hashCode());
+		assertEquals(first.fingerprint(), second.fingerprint());
+		assertFalse(first.equals(other));
+		assertTrue(first.fingerprint() != other.fingerprint());
+		// the fingerprint combines the keys of the distinct formulae
+		assertEquals(new Disjunction(p).fingerprint(), new Disjunction(p, p)
+				.fingerprint());
+		assertEquals(new Disjunction(p).fingerprint()
+				^ new Disjunction(q).fingerprint(), other.fingerprint());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void disjunctionShouldBeImmutable() throws RecognitionException,
+			TokenStreamException {
+		List<Formula> formulae = new ArrayList<Formula>();
+		formulae.add(parseFormula("p").getFormula());
+		Disjunction disjunction = new Disjunction(formulae);
+		// changing the given collection does not affect the disjunction
+		formulae.add(parseFormula("q").getFormula());
+		assertEquals(1, disjunction.formulae.size());
+		disjunction.formulae.add(parseFormula("q").getFormula());
+	}
+}
@@ -1,27 +1,70 @@
 package resolutionprover.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import resolutionprover.ActiveSet;
+import resolutionprover.AgeWeightSelection;
+import resolutionprover.AtomTable;
+import resolutionprover.AtomicDisjunction;
+import resolutionprover.Backend;
+import resolutionprover.BitsetDisjunction;
+import resolutionprover.Clausification;
 import resolutionprover.FirstOrderProver;
+import resolutionprover.Phase;
+import resolutionprover.Portfolio;
+import resolutionprover.ProblemSnapshot;
+import resolutionprover.ProofResult;
 import resolutionprover.PropositionalProver;
+import resolutionprover.ProverMetrics;
+import resolutionprover.ProverSession;
+import resolutionprover.ResourceLimits;
+import resolutionprover.ResultCache;
+import resolutionprover.Rule;
+import resolutionprover.SatSolver;
+import resolutionprover.TraceEntry;
+import resolutionprover.TraceMode;
+import resolutionprover.TstpProofSink;
 import resolutionprover.Util;
 import tptp.AnnotatedFormula;
+import tptp.Formula;
+import tptp.IncludeResolver;
+import tptp.MappedInputBuffer;
+import tptp.ParallelTptpParser;
 import tptp.SimpleTptpParserOutput;
 import tptp.TopLevelItem;
 import tptp.TptpLexer;
 import tptp.TptpParser;
+import tptp.TptpParserOutput.FormulaRole;
 import antlr.RecognitionException;
 import antlr.TokenStreamException;
 
@@ -34,13 +77,13 @@ public class ResolutionProverTest {
 
 	@BeforeClass
 	public static void setupFormulas() throws RecognitionException,
-			TokenStreamException, FileNotFoundException {
+			TokenStreamException, IOException {
 		simpleTautology1 = parseFormula("p|~p");
 		simpleTautology2 = parseFormula("(a=>b)|(b=>a)");
 		simpleTautology3 = parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))");
 		testFormula = parseFormula("((p & q) | (r => s)) => ((p | (r => s )) & (q | (r => s)))");
 		atomic = parseFormula("p");
-		miami_cs = parseReader(new FileReader("test/MiamiDegree.p"));
+		miami_cs = parseFile("test/MiamiDegree.p");
 		alt = parseFormula("(c|~c)|(~c|c)");
 		equivalence = parseFormula("a <=> a");
 		ffalse = parseFormula("$false");
@@ -49,9 +92,9 @@ public class ResolutionProverTest {
 		//TODO lhs and rhs of "=>" are null, shitty parser?
 		testFirstOrder = parseFormula("( ?[W]: ![X]: r(X,W,f(X,W)) ) => ( ?[W]: ![X]: ?[Y]: r(X,W,Y) )");
 		testFirstOrder2 = parseFormula("![X]:(r(X)) => ![X]:(r(X))");
-		sudoku = parseReader(new FileReader("test/SudokuTheorem1.p"));
-		sudoku_counter1 = parseReader(new FileReader("test/SudokuCounterSatisfiable1.p"));
-		sudoku_counter2 = parseReader(new FileReader("test/SudokuCounterSatisfiable2.p"));
+		sudoku = parseFile("test/SudokuTheorem1.p");
+		sudoku_counter1 = parseFile("test/SudokuCounterSatisfiable1.p");
+		sudoku_counter2 = parseFile("test/SudokuCounterSatisfiable2.p");
 	}
 
 	@Test
@@ -95,6 +138,30 @@ public class ResolutionProverTest {
     assertTrue(proveFirstOrder(testFirstOrder2));
   }
 	
+	@Test
+	public void proveFirstOrderWithSharedVariableNames()
+			throws RecognitionException, TokenStreamException {
+		// both axioms bind X1 after parsing
+		List<Formula> axioms = Arrays.asList(parseFormula("![X]: (p(X) | q)")
+				.getFormula(), parseFormula("![X]: (~p(X) | r)").getFormula());
+		final List<String> dropped = new ArrayList<String>();
+		FirstOrderProver prover = new FirstOrderProver(axioms, parseFormula(
+				"q | r").getFormula());
+		prover.setProverListener(new ProverMetrics() {
+			@Override
+			public void generated(TraceEntry entry) {
+				if (entry.rule == Rule.DROP_ALL)
+					dropped.add(entry.literalsToString());
+			}
+		});
+		// without unification the atoms of different variables do not resolve
+		assertFalse(prover.prove());
+		assertEquals(2, dropped.size());
+		String variable1 = dropped.get(0).replaceAll(".*p\\((\\w+)\\).*", "$1");
+		String variable2 = dropped.get(1).replaceAll(".*p\\((\\w+)\\).*", "$1");
+		assertFalse(variable1.equals(variable2));
+	}
+
 	@Test
 	public void notProveSoduko1() {
 	  assertFalse(prove(sudoku_counter1));
@@ -110,6 +177,790 @@ public class ResolutionProverTest {
     assertTrue(prove(sudoku));
   }
 	
+	@Test
+	public void proveWithResolution() throws RecognitionException,
+			TokenStreamException {
+		assertTrue(proveWithResolution(parseFormula("p|~p")));
+		assertTrue(proveWithResolution(parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))")));
+		assertTrue(proveWithResolution(parseFormula("a <=> a")));
+		assertFalse(proveWithResolution(parseFormula("p")));
+		assertFalse(proveWithResolution(parseFormula("~((c|~c)|(~c|c))")));
+		assertTrue(proveWithResolution(miami_cs.toArray(new AnnotatedFormula[0])));
+	}
+	
+	@Test
+	public void proveWithParallelResolution() {
+		PropositionalProver prover = new PropositionalProver(
+				sudoku.toArray(new AnnotatedFormula[0]));
+		prover.setBackend(Backend.RESOLUTION);
+		prover.setResolutionThreads(4);
+		assertTrue(prover.prove());
+	}
+	
+	@Test
+	public void proveWithBitsetResolution() {
+		long[] kept = new long[2];
+		for (int i = 0; i < kept.length; i++) {
+			PropositionalProver prover = new PropositionalProver(
+					sudoku.toArray(new AnnotatedFormula[0]));
+			prover.setBackend(Backend.RESOLUTION);
+			prover.setBitsetAtomThreshold(i == 0 ? 0 : Integer.MAX_VALUE);
+			ProverMetrics metrics = new ProverMetrics();
+			prover.setProverListener(metrics);
+			assertTrue(prover.prove());
+			kept[i] = metrics.getKept();
+		}
+		assertEquals(kept[0], kept[1]);
+	}
+
+	@Test
+	public void bitsetResolventShouldMatchMerge() {
+		AtomTable table = new AtomTable();
+		int[][] literals = {
+				{ AtomTable.positive(1), AtomTable.negative(70) },
+				{ AtomTable.negative(1), AtomTable.positive(3),
+						AtomTable.positive(70), AtomTable.negative(130) },
+				{ AtomTable.positive(3), AtomTable.positive(70),
+						AtomTable.negative(130) } };
+		AtomicDisjunction[] array = new AtomicDisjunction[3];
+		AtomicDisjunction[] bitset = new AtomicDisjunction[3];
+		for (int i = 0; i < 3; i++) {
+			array[i] = new AtomicDisjunction(table, literals[i]);
+			bitset[i] = new BitsetDisjunction(table, literals[i], 3);
+		}
+		// resolving on atom 1 keeps 70 and its negation, on 70 it does not
+		int[][] steps = { { 1, AtomTable.positive(1) },
+				{ 2, AtomTable.negative(70) } };
+		for (int[] step : steps) {
+			AtomicDisjunction expected = array[0].resolve(array[step[0]], step[1]);
+			AtomicDisjunction actual = bitset[0].resolve(bitset[step[0]], step[1]);
+			assertArrayEquals(expected.literals, actual.literals);
+			assertEquals(step[0] == 1, expected.isTautology());
+			assertEquals(expected.isTautology(), actual.isTautology());
+		}
+	}
+
+	/**
+	 * {@link PropositionalProver} counting the calls of the given clause loop
+	 * hooks, optionally dropping every generated disjunction
+	 */
+	private static class HookedProver extends PropositionalProver {
+		int given = 0;
+		int generated = 0;
+		final boolean dropGenerated;
+	
+		HookedProver(boolean dropGenerated, AnnotatedFormula... formulae) {
+			super(formulae);
+			this.dropGenerated = dropGenerated;
+			setBackend(Backend.RESOLUTION);
+			setResolutionThreads(1);
+		}
+	
+		@Override
+		protected AtomicDisjunction simplifyGiven(AtomicDisjunction disjunction) {
+			given++;
+			return super.simplifyGiven(disjunction);
+		}
+	
+		@Override
+		protected AtomicDisjunction simplifyGenerated(
+				AtomicDisjunction disjunction) {
+			generated++;
+			return dropGenerated ? null : super.simplifyGenerated(disjunction);
+		}
+	}
+	
+	@Test
+	public void proveWithGivenClauseHooks() throws RecognitionException,
+			TokenStreamException {
+		AnnotatedFormula formula = parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))");
+		HookedProver prover = new HookedProver(false, formula);
+		ProverMetrics metrics = new ProverMetrics();
+		prover.setProverListener(metrics);
+		assertTrue(prover.prove());
+		assertTrue(prover.given > 0);
+		assertTrue(prover.generated > 0);
+		// every selected disjunction passes the hook before it is activated
+		assertTrue(prover.given >= metrics.getActivated());
+	
+		// without intermediate resolvents the empty disjunction is not reached
+		prover = new HookedProver(true, formula);
+		assertFalse(prover.prove());
+		assertTrue(prover.generated > 0);
+	
+		// the empty resolvent bypasses the hooks
+		prover = new HookedProver(true, parseFormula("p|~p"));
+		assertTrue(prover.prove());
+		assertEquals(0, prover.generated);
+	}
+	
+	@Test
+	public void selectByAgeAndWeight() {
+		AtomTable atomTable = new AtomTable();
+		int ratio = 3;
+		AgeWeightSelection selection = new AgeWeightSelection(1, ratio);
+		List<AtomicDisjunction> heavy = new ArrayList<AtomicDisjunction>();
+		List<AtomicDisjunction> light = new ArrayList<AtomicDisjunction>();
+		for (int i = 0; i < 4; i++) {
+			heavy.add(disjunction(atomTable, 0, 2, 4, 2 * i + 6));
+			selection.add(heavy.get(i));
+		}
+		for (int i = 0; i < 4 * ratio; i++) {
+			light.add(disjunction(atomTable, 2 * i));
+			selection.add(light.get(i));
+		}
+		assertEquals(heavy.size() + light.size(), selection.size());
+		// the oldest disjunction is selected once every ratio + 1 selections,
+		// disjunctions of equal weight are selected oldest first
+		for (int i = 0; i < heavy.size() + light.size(); i++) {
+			AtomicDisjunction expected = i % (ratio + 1) == 0 ? heavy.get(i
+					/ (ratio + 1)) : light.get(i - i / (ratio + 1) - 1);
+			assertTrue(expected == selection.poll());
+		}
+		assertTrue(selection.isEmpty());
+		assertEquals(null, selection.poll());
+	}
+	
+	@Test
+	public void forwardSubsumption() {
+		AtomTable atomTable = new AtomTable();
+		ActiveSet active = new ActiveSet();
+		active.add(disjunction(atomTable, 2, 5));
+		active.add(disjunction(atomTable, 0, 7));
+		assertTrue(active.isSubsumed(disjunction(atomTable, 2, 4, 5)));
+		assertTrue(active.isSubsumed(disjunction(atomTable, 0, 7)));
+		assertFalse(active.isSubsumed(disjunction(atomTable, 2, 4)));
+		assertFalse(active.isSubsumed(disjunction(atomTable, 5, 7)));
+		// only disjunctions whose smallest literal is contained subsume
+		assertFalse(active.isSubsumed(disjunction(atomTable, 7)));
+		assertEquals(2, active.size());
+	}
+	
+	@Test
+	public void backwardSubsumption() {
+		AtomTable atomTable = new AtomTable();
+		ActiveSet active = new ActiveSet();
+		AtomicDisjunction subsumed1 = disjunction(atomTable, 0, 3, 5);
+		AtomicDisjunction subsumed2 = disjunction(atomTable, 3, 5);
+		AtomicDisjunction kept = disjunction(atomTable, 2, 3);
+		active.add(subsumed1);
+		active.add(subsumed2);
+		active.add(kept);
+		AtomicDisjunction subsuming = disjunction(atomTable, 3, 5);
+		assertEquals(Arrays.asList(subsumed1, subsumed2),
+				active.removeSubsumed(subsuming));
+		assertTrue(subsumed1.subsumed);
+		assertFalse(kept.subsumed);
+		assertEquals(1, active.size());
+		assertEquals(Arrays.asList(kept), active.containing(3));
+		// evicted disjunctions no longer subsume
+		assertFalse(active.isSubsumed(disjunction(atomTable, 0, 3, 5, 6)));
+		active.add(subsuming);
+		assertTrue(active.isSubsumed(disjunction(atomTable, 0, 3, 5, 6)));
+		assertTrue(active.removeSubsumed(disjunction(atomTable, 8)).isEmpty());
+	}
+	
+	private static AtomicDisjunction disjunction(AtomTable atomTable,
+			int... literals) {
+		return new AtomicDisjunction(atomTable, literals);
+	}
+
+	@Test
+	public void solveWithAssumptions() {
+		AtomTable atomTable = new AtomTable();
+		int a = AtomTable.positive(0), b = AtomTable.positive(1);
+		SatSolver solver = new SatSolver(2);
+		solver.addClause(disjunction(atomTable, a, b));
+		solver.addClause(disjunction(atomTable, AtomTable.negate(a), b));
+		// ~b under the activation literal refutes the clauses
+		int activation = AtomTable.positive(2);
+		solver.addClause(disjunction(atomTable, AtomTable.negate(b)), activation);
+		assertFalse(solver.solve(activation));
+		assertTrue(solver.solve());
+		// the atom of a released activation literal is free again
+		solver.release(activation);
+		int c = activation;
+		solver.addClause(disjunction(atomTable, c));
+		solver.addClause(disjunction(atomTable, b, AtomTable.negate(c)));
+		assertTrue(solver.solve());
+		activation = AtomTable.positive(3);
+		solver.addClause(disjunction(atomTable, AtomTable.negate(b)), activation);
+		assertFalse(solver.solve(activation));
+		solver.release(activation);
+		assertTrue(solver.solve(activation));
+	}
+
+	@Test
+	public void proveWithSession() throws RecognitionException,
+			TokenStreamException {
+		ProverSession session = new ProverSession();
+		session.addAxioms(Arrays.asList(parseFormula("a => b").getFormula(),
+				parseFormula("b => c").getFormula()));
+		int axioms = session.getAxioms().size();
+		Formula valid = parseFormula("a => c").getFormula();
+		Formula invalid = parseFormula("c => a").getFormula();
+		for (Backend backend : Backend.values()) {
+			PropositionalProver prover = session.newQuery(valid);
+			prover.setBackend(backend);
+			assertTrue(prover.prove());
+			prover = session.newQuery(invalid);
+			prover.setBackend(backend);
+			assertFalse(prover.prove());
+		}
+		assertEquals(axioms, session.getAxioms().size());
+		assertTrue(session.prove(valid));
+
+		List<Formula> sudokuAxioms = new LinkedList<Formula>();
+		Formula sudokuConjecture = null;
+		for (AnnotatedFormula formula : sudoku) {
+			if (formula.getRole() == FormulaRole.Conjecture)
+				sudokuConjecture = formula.getFormula();
+			else
+				sudokuAxioms.add(formula.getFormula());
+		}
+		session.addAxioms(sudokuAxioms);
+		for (Backend backend : Backend.values()) {
+			PropositionalProver prover = session.newQuery(sudokuConjecture);
+			prover.setBackend(backend);
+			assertTrue(prover.prove());
+		}
+	}
+	
+	@Test
+	public void proveEachWithSession() throws RecognitionException,
+			TokenStreamException {
+		ProverSession session = new ProverSession(Arrays.asList(parseFormula(
+				"a => b").getFormula(), parseFormula("b => c").getFormula()));
+		List<Formula> conjectures = Arrays.asList(parseFormula("a => c")
+				.getFormula(), parseFormula("c => a").getFormula(), parseFormula(
+				"a => b").getFormula(), parseFormula("b | ~b").getFormula());
+		List<ProofResult> expected = Arrays.asList(ProofResult.VALID,
+				ProofResult.NOT_VALID, ProofResult.VALID, ProofResult.VALID);
+		session.setQueryThreads(1);
+		assertEquals(expected, session.proveEach(conjectures));
+		session.setQueryThreads(4);
+		assertEquals(expected, session.proveEach(conjectures));
+	}
+	
+	@Test
+	public void proveEachInParallel() throws RecognitionException,
+			TokenStreamException, InterruptedException {
+		final ProverSession session = new ProverSession(Arrays.asList(
+				parseFormula("a => b").getFormula(), parseFormula("b => c")
+						.getFormula()));
+		final List<Formula> conjectures = Arrays.asList(parseFormula("a => c")
+				.getFormula(), parseFormula("c => a").getFormula(), parseFormula(
+				"b => c").getFormula(), parseFormula("c => b").getFormula());
+		// decides whether the axioms are satisfiable
+		assertTrue(session.prove(conjectures.get(0)));
+		// every search waits until another one is done as well
+		final CyclicBarrier barrier = new CyclicBarrier(2);
+		final AtomicInteger met = new AtomicInteger();
+		session.setProverListener(new ProverMetrics() {
+			@Override
+			public void searchFinished(long conflicts, long decisions) {
+				try {
+					barrier.await(10, TimeUnit.SECONDS);
+					met.incrementAndGet();
+				} catch (Exception e) {
+					// the searches did not overlap
+				}
+			}
+		});
+		session.setQueryThreads(2);
+		final List<List<ProofResult>> results = Collections
+				.synchronizedList(new ArrayList<List<ProofResult>>());
+		Thread batch = new Thread() {
+			@Override
+			public void run() {
+				results.add(session.proveEach(conjectures));
+			}
+		};
+		// a single query holding the solver of the session does not stop the batch
+		synchronized (session) {
+			batch.start();
+			batch.join(60000);
+		}
+		assertFalse(batch.isAlive());
+		assertEquals(Arrays.asList(Arrays.asList(ProofResult.VALID,
+				ProofResult.NOT_VALID, ProofResult.VALID, ProofResult.NOT_VALID)),
+				results);
+		assertEquals(conjectures.size(), met.get());
+	}
+	
+	@Test
+	public void proveWithPortfolio() {
+		Portfolio portfolio = new Portfolio(sudoku.toArray(new AnnotatedFormula[0]));
+		portfolio.addDefaultStrategies();
+		assertEquals(ProofResult.VALID, portfolio.prove());
+		assertTrue(portfolio.getWinner() != null);
+		assertTrue(portfolio.getWinningProver().getRefutation().size() > 0);
+
+		portfolio = new Portfolio(sudoku_counter1.toArray(new AnnotatedFormula[0]));
+		portfolio.addDefaultStrategies();
+		assertEquals(ProofResult.NOT_VALID, portfolio.prove());
+
+		// the breadth-first member is cancelled once the SAT backend answers
+		portfolio = new Portfolio(sudoku.toArray(new AnnotatedFormula[0]));
+		portfolio.addStrategy("age", new Portfolio.Strategy() {
+			@Override
+			public void configure(PropositionalProver prover) {
+				prover.setBackend(Backend.RESOLUTION);
+				prover.setClauseSelection(new AgeWeightSelection(1, 0));
+			}
+		});
+		portfolio.addStrategy("cdcl", new Portfolio.Strategy() {
+			@Override
+			public void configure(PropositionalProver prover) {
+				prover.setBackend(Backend.CDCL);
+			}
+		});
+		portfolio.setTimeout(60000);
+		assertEquals(ProofResult.VALID, portfolio.prove());
+		assertEquals("cdcl", portfolio.getWinner());
+
+		// a failing member loses without ending the race
+		portfolio = new Portfolio(sudoku.toArray(new AnnotatedFormula[0]));
+		Portfolio.Strategy failing = new Portfolio.Strategy() {
+			@Override
+			public void configure(PropositionalProver prover) {
+				prover.setProverListener(new ProverMetrics() {
+					@Override
+					public void phaseFinished(Phase phase, long nanos) {
+						throw new IllegalStateException("failing member");
+					}
+				});
+			}
+		};
+		portfolio.addStrategy("failing", failing);
+		portfolio.addStrategy("cdcl", new Portfolio.Strategy() {
+			@Override
+			public void configure(PropositionalProver prover) {
+				prover.setBackend(Backend.CDCL);
+			}
+		});
+		assertEquals(ProofResult.VALID, portfolio.prove());
+		assertEquals("cdcl", portfolio.getWinner());
+
+		portfolio = new Portfolio(sudoku.toArray(new AnnotatedFormula[0]));
+		portfolio.addStrategy("failing", failing);
+		try {
+			portfolio.prove();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException e) {
+			assertEquals("failing member", e.getMessage());
+		}
+	}
+
+	@Test
+	public void proveWithoutTraceShouldPrintNothing() {
+		PrintStream out = System.out;
+		ByteArrayOutputStream printed = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(printed));
+		try {
+			PropositionalProver prover = new PropositionalProver(
+					sudoku.toArray(new AnnotatedFormula[0]));
+			prover.setTraceMode(TraceMode.OFF);
+			assertTrue(prover.prove());
+		} finally {
+			System.setOut(out);
+		}
+		assertEquals(0, printed.size());
+	}
+	
+	@Test
+	public void proveWithResultCache() throws IOException,
+			RecognitionException, TokenStreamException {
+		File directory = File.createTempFile("results", "");
+		directory.delete();
+		ResultCache cache = new ResultCache(directory, 1 << 20);
+		List<AnnotatedFormula> reversed = new ArrayList<AnnotatedFormula>(sudoku);
+		Collections.reverse(reversed);
+		String key = ResultCache.key(sudoku);
+		assertEquals(key, ResultCache.key(reversed));
+		assertFalse(key.equals(ResultCache.key(sudoku_counter1)));
+
+		assertEquals(null, cache.get(key));
+		assertEquals(ProofResult.VALID, cache.prove(sudoku));
+		assertEquals(ProofResult.VALID, cache.get(key));
+		assertTrue(cache.getProof(key).contains("[]"));
+		assertEquals(ProofResult.VALID, cache.prove(reversed));
+
+		// keys do not depend on the names the parser gives bound variables
+		String quantified = "(![X]: (p(X) => ?[Y]: q(X,Y))) & ![X]: ~p(X)";
+		assertFalse(ResultCache.key(Arrays.asList(parseFormula(quantified)))
+				.equals(ResultCache.key(Arrays.asList(parseFormula(
+						"(![X]: (p(X) => ?[Y]: q(Y,X))) & ![X]: ~p(X)")))));
+		String quantifiedKey = ResultCache.key(Arrays
+				.asList(parseFormula(quantified)));
+		assertEquals(quantifiedKey, ResultCache.key(Arrays.asList(parseFormula(
+				"(![Z]: (p(Z) => ?[W]: q(Z,W))) & ![V]: ~p(V)"))));
+		cache.put(quantifiedKey, ProofResult.NOT_VALID, null);
+		assertEquals(ProofResult.NOT_VALID, cache.get(ResultCache.key(Arrays
+				.asList(parseFormula(quantified)))));
+
+		// the least recently used entry is evicted
+		cache.put(key, ProofResult.VALID, null);
+		long length = new File(directory, key + ".gz").length();
+		cache = new ResultCache(directory, length * 3 / 2);
+		assertEquals(ProofResult.VALID, cache.get(key));
+		cache.put("other", ProofResult.NOT_VALID, null);
+		assertEquals(null, cache.get(key));
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	@Test
+	public void proveWithProblemSnapshot() throws IOException,
+			RecognitionException, TokenStreamException {
+		List<Formula> axioms = new LinkedList<Formula>();
+		Formula conjecture = null;
+		for (AnnotatedFormula formula : sudoku) {
+			if (formula.getRole() == FormulaRole.Conjecture)
+				conjecture = formula.getFormula();
+			else
+				axioms.add(formula.getFormula());
+		}
+		ProverSession session = new ProverSession(axioms);
+		File file = File.createTempFile("sudoku", ".snapshot");
+		try {
+			ProblemSnapshot.write(session, file);
+			ProverSession restored = ProblemSnapshot.read(file);
+			assertEquals(session.getAxioms(), restored.getAxioms());
+			for (int i = 0; i < session.getAxioms().size(); i++)
+				assertEquals(session.getAxioms().get(i).literalsToString(), restored
+						.getAxioms().get(i).literalsToString());
+			for (Backend backend : Backend.values()) {
+				PropositionalProver prover = restored.newQuery(conjecture);
+				prover.setBackend(backend);
+				assertTrue(prover.prove());
+			}
+			assertFalse(restored.prove(parseFormula("a").getFormula()));
+	
+			// lengths beyond the end of the snapshot are rejected before
+			// allocating, the symbol count following the header of five ints
+			RandomAccessFile corrupt = new RandomAccessFile(file, "rw");
+			try {
+				for (int length : new int[] { Integer.MAX_VALUE, -2 }) {
+					corrupt.seek(20);
+					corrupt.writeInt(length);
+					assertCorrupt(file);
+				}
+				corrupt.setLength(30);
+				assertCorrupt(file);
+			} finally {
+				corrupt.close();
+			}
+
+			// clauses must be sorted without duplicates
+			for (int[] literals : new int[][] { { 2, 0 }, { 0, 0 } }) {
+				DataOutputStream out = writeSnapshotHeader(file);
+				try {
+					out.writeInt(2);
+					for (int atom = 0; atom < 2; atom++) {
+						out.writeInt(atom);
+						out.writeInt(-1);
+					}
+					out.writeInt(1);
+					out.writeInt(1);
+					out.writeInt(literals.length);
+					for (int literal : literals)
+						out.writeInt(literal);
+				} finally {
+					out.close();
+				}
+				assertCorrupt(file);
+			}
+
+			// deeply nested terms are rejected instead of overflowing the stack
+			DataOutputStream out = writeSnapshotHeader(file);
+			try {
+				out.writeInt(1);
+				out.writeInt(0);
+				for (int i = 0; i < 100000; i++) {
+					out.writeInt(1);
+					out.writeInt(1);
+					out.writeInt(0);
+				}
+				out.writeInt(-1);
+				out.writeInt(0);
+			} finally {
+				out.close();
+			}
+			assertCorrupt(file);
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Starts a snapshot of an unknown session with the symbols p and q.
+	 */
+	private static DataOutputStream writeSnapshotHeader(File file)
+			throws IOException {
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		for (int header : new int[] { 0x50525342, 1, 0, 0, -1, 2 })
+			out.writeInt(header);
+		for (String symbol : new String[] { "p", "q" }) {
+			out.writeInt(1);
+			out.writeBytes(symbol);
+		}
+		return out;
+	}
+	
+	private static void assertCorrupt(File file) {
+		try {
+			ProblemSnapshot.read(file);
+			fail("Read corrupt snapshot");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void parseMappedFile() throws RecognitionException,
+			TokenStreamException, IOException {
+		List<AnnotatedFormula> read = parseReader(new FileReader(
+				"test/SudokuTheorem1.p"));
+		assertEquals(read.size(), sudoku.size());
+		for (int i = 0; i < read.size(); i++) {
+			assertEquals(read.get(i).getName(), sudoku.get(i).getName());
+			assertEquals(read.get(i).getFormula(), sudoku.get(i).getFormula());
+		}
+	}
+	
+	@Test
+	public void parseInParallel() throws RecognitionException,
+			TokenStreamException, IOException {
+		String tptp = "fof(a, axiom, p). % fof(x, axiom, x).\n"
+				+ "/* fof(y, axiom, y). */ fof('b. c)', axiom, (q => p)).\n"
+				+ "fof(c, conjecture, ~ ( q & 'r.s' ) ).\n";
+		assertSameItems(parseReader(new StringReader(tptp)), ParallelTptpParser
+				.parse(ByteBuffer.wrap(tptp.getBytes("US-ASCII")),
+						new SimpleTptpParserOutput(), 4));
+		assertSameItems(sudoku, ParallelTptpParser.parse(new File(
+				"test/SudokuTheorem1.p"), new SimpleTptpParserOutput(), 4));
+	
+		// bound variables are named independently of the other formulae
+		StringBuilder quantified = new StringBuilder();
+		for (int i = 0; i < 32; i++)
+			quantified.append(String.format("fof(f%d, axiom, ![X, Y]: (p%d(X) => "
+					+ "?[Z]: (q(X, f(Z)) & ![X]: r(X, Y)))).\n", i, i));
+		tptp = quantified.toString();
+		List<AnnotatedFormula> sequential = parseTPTP(tptp);
+		List<TopLevelItem> parallel = ParallelTptpParser.parse(ByteBuffer
+				.wrap(tptp.getBytes("US-ASCII")), new SimpleTptpParserOutput(), 4);
+		assertSameItems(sequential, parallel);
+		for (int i = 0; i < sequential.size(); i++)
+			assertEquals(sequential.get(i).getFormula(),
+					((AnnotatedFormula) parallel.get(i)).getFormula());
+		assertEquals(sequential.get(0).getFormula(), parseTPTP(tptp).get(0)
+				.getFormula());
+		// the last variable of a list is bound outermost
+		assertEquals("! [X1] : (! [X2] : ((p0(X2) => ? [X3] : ((q(X2,f(X3)) & "
+				+ "! [X4] : (r(X4,X1)))))))", sequential.get(0).getFormula()
+				.toString());
+	}
+
+	private static void assertSameItems(List<AnnotatedFormula> expected,
+			List<TopLevelItem> items) {
+		assertEquals(expected.size(), items.size());
+		for (int i = 0; i < items.size(); i++) {
+			AnnotatedFormula item = (AnnotatedFormula) items.get(i);
+			assertEquals(expected.get(i).getName(), item.getName());
+			assertEquals(expected.get(i).getLineNumber(), item.getLineNumber());
+			assertEquals(expected.get(i).getFormula().toString(), item.getFormula()
+					.toString());
+		}
+	}
+	
+	@Test
+	public void resolveIncludes() throws RecognitionException,
+			TokenStreamException, IOException {
+		File directory = File.createTempFile("includes", "");
+		directory.delete();
+		File axioms = new File(directory, "Axioms/AX001.ax");
+		axioms.getParentFile().mkdirs();
+		File problem = new File(directory, "problem.p");
+		try {
+			write(axioms, "fof(ax1, axiom, a => b).\nfof(ax2, axiom, b => c).\n"
+					+ "fof(ax3, axiom, ~ c).\n");
+			write(problem, "include('Axioms/AX001.ax', [ax1, ax2]).\n"
+					+ "fof(goal, conjecture, a => c).\n");
+			IncludeResolver resolver = new IncludeResolver(directory);
+			List<TopLevelItem> items = resolver.parse(problem);
+			assertEquals(3, items.size());
+			assertEquals("ax1", ((AnnotatedFormula) items.get(0)).getName());
+			assertEquals("goal", ((AnnotatedFormula) items.get(2)).getName());
+			assertTrue(new PropositionalProver(items.toArray(new AnnotatedFormula[0]))
+					.prove());
+
+			// the axioms are parsed once per resolver as long as they are not
+			// modified
+			List<TopLevelItem> again = resolver.parse(problem);
+			assertTrue(items.get(0) == again.get(0));
+			assertTrue(items.get(0) != new IncludeResolver(directory).parse(problem)
+					.get(0));
+			axioms.setLastModified(axioms.lastModified() - 10000);
+			assertTrue(items.get(0) != resolver.parse(problem).get(0));
+
+			// a cycle is rejected as soon as a file includes itself again
+			write(axioms, "include('problem.p').\nfof(ax1, axiom, a => b).\n");
+			try {
+				resolver.parse(problem);
+				fail("Include cycle not detected");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().startsWith("Include cycle"));
+			}
+		} finally {
+			axioms.delete();
+			axioms.getParentFile().delete();
+			problem.delete();
+			directory.delete();
+		}
+	}
+
+	private static void write(File file, String content) throws IOException {
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+	
+	@Test
+	public void proveWithRefutationTrace() throws RecognitionException,
+			TokenStreamException {
+		for (Backend backend : Backend.values()) {
+			PropositionalProver prover = new PropositionalProver(
+					parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))"));
+			prover.setBackend(backend);
+			prover.setTraceMode(TraceMode.REFUTATION);
+			assertTrue(prover.prove());
+			List<TraceEntry> refutation = prover.getRefutation();
+			TraceEntry empty = refutation.get(refutation.size() - 1);
+			assertTrue(((AtomicDisjunction) empty).isEmpty());
+			if (backend == Backend.RESOLUTION)
+				assertEquals(Rule.CONJECTURE, refutation.get(0).rule);
+		}
+		PropositionalProver prover = new PropositionalProver(parseFormula("p"));
+		prover.setTraceMode(TraceMode.OFF);
+		assertFalse(prover.prove());
+		assertTrue(prover.getRefutation().isEmpty());
+	}
+	
+	@Test
+	public void proveWithTstpProofSink() throws RecognitionException,
+			TokenStreamException {
+		StringWriter writer = new StringWriter();
+		PropositionalProver prover = new PropositionalProver(
+				parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))"));
+		prover.setBackend(Backend.RESOLUTION);
+		prover.setProofSink(new TstpProofSink(writer));
+		assertTrue(prover.prove());
+		String tstp = writer.toString();
+		assertTrue(tstp.startsWith("fof(c1, negated_conjecture, "));
+		assertTrue(tstp.contains(", $false, inference(resolution, [status(thm)], [c"));
+	}
+	
+	@Test
+	public void proveWithMetrics() throws RecognitionException,
+			TokenStreamException {
+		ProverMetrics metrics = new ProverMetrics();
+		PropositionalProver prover = new PropositionalProver(
+				parseFormula("(a=>(b=>c))=>((a=>b)=>(a=>c))"));
+		prover.setBackend(Backend.RESOLUTION);
+		prover.setProverListener(metrics);
+		assertTrue(prover.prove());
+		assertTrue(metrics.getApplications(Rule.ALPHA1) > 0);
+		assertTrue(metrics.getApplications(Rule.BETA) > 0);
+		assertTrue(metrics.getApplications(Rule.RESOLUTION) > 0);
+		assertTrue(metrics.getKept() > 0);
+		assertTrue(metrics.getActivated() > 0);
+		assertTrue(metrics.getActivated() <= metrics.getKept());
+		assertTrue(metrics.getNanos(Phase.CLAUSIFICATION) > 0);
+		assertTrue(metrics.getNanos(Phase.REFUTATION) > 0);
+		assertEquals(0, metrics.getConflicts());
+
+		metrics = new ProverMetrics();
+		prover = new PropositionalProver(sudoku.toArray(new AnnotatedFormula[0]));
+		prover.setBackend(Backend.CDCL);
+		prover.setProverListener(metrics);
+		assertTrue(prover.prove());
+		assertTrue(metrics.getDecisions() > 0 || metrics.getConflicts() > 0);
+		assertEquals(1, metrics.getApplications(Rule.CDCL));
+	}
+	
+	@Test
+	public void proveWithResourceLimits() {
+		ResourceLimits limits = new ResourceLimits();
+		limits.setTimeout(500);
+		PropositionalProver prover = new PropositionalProver(
+				sudoku_counter1.toArray(new AnnotatedFormula[0]));
+		prover.setBackend(Backend.RESOLUTION);
+		prover.setResourceLimits(limits);
+		assertFalse(prover.prove());
+		assertEquals(ProofResult.TIMEOUT, prover.getResult());
+
+		limits = new ResourceLimits();
+		limits.setMaxKeptClauses(100);
+		prover = new PropositionalProver(sudoku.toArray(new AnnotatedFormula[0]));
+		prover.setBackend(Backend.RESOLUTION);
+		prover.setResourceLimits(limits);
+		assertFalse(prover.prove());
+		assertEquals(ProofResult.RESOURCE_OUT, prover.getResult());
+
+		limits = new ResourceLimits();
+		limits.cancel();
+		prover = new PropositionalProver(miami_cs.toArray(new AnnotatedFormula[0]));
+		prover.setResourceLimits(limits);
+		assertFalse(prover.prove());
+		assertEquals(ProofResult.CANCELLED, prover.getResult());
+	}
+	
+	@Test
+	public void proveWithDefinitionalClausification() throws RecognitionException,
+			TokenStreamException {
+		assertTrue(proveDefinitional(parseFormula("((p & q) | (r => s)) => ((p | (r => s )) & (q | (r => s)))")));
+		assertTrue(proveDefinitional(parseFormula("(a=>b)|(b=>a)")));
+		assertTrue(proveDefinitional(parseFormula("a <=> a")));
+		assertFalse(proveDefinitional(parseFormula("p")));
+		assertFalse(proveDefinitional(parseFormula("~((c|~c)|(~c|c))")));
+		assertTrue(proveDefinitional(miami_cs.toArray(new AnnotatedFormula[0])));
+	}
+
+	@Test
+	public void definitionsShouldBeSharedPerProblem()
+			throws RecognitionException, TokenStreamException {
+		List<AnnotatedFormula> formulae = parseTPTP("fof(a1,axiom,a | (b & c)).\n"
+				+ "fof(a2,axiom,d | (b & c)).\n"
+				+ "fof(c,conjecture,(a & d) | b).");
+		List<List<String>> definitions = new ArrayList<List<String>>();
+		for (int threads : new int[] { 1, 4 }) {
+			final List<String> defined = new ArrayList<String>();
+			PropositionalProver prover = new PropositionalProver(
+					formulae.toArray(new AnnotatedFormula[0]));
+			prover.setClausification(Clausification.DEFINITIONAL);
+			prover.setClausificationThreads(threads);
+			prover.setTraceMode(TraceMode.OFF);
+			prover.setProverListener(new ProverMetrics() {
+				@Override
+				public void generated(TraceEntry entry) {
+					if (entry.rule == Rule.DEFINITION)
+						defined.add(entry.literalsToString());
+				}
+			});
+			assertTrue(prover.prove());
+			definitions.add(defined);
+		}
+		// b & c is defined once for both axioms by two disjunctions, the
+		// negated conjecture by another two, the same way by any thread
+		assertEquals(4, definitions.get(0).size());
+		assertEquals(definitions.get(0), definitions.get(1));
+	}
+	
 	private boolean proveFirstOrder(AnnotatedFormula formula) {
 		return new FirstOrderProver(formula).prove();
 	}
@@ -145,6 +996,18 @@ public class ResolutionProverTest {
 				formulae.toArray(new AnnotatedFormula[0])).prove();
 	}
 
+	private boolean proveWithResolution(AnnotatedFormula... formulae) {
+		PropositionalProver prover = new PropositionalProver(formulae);
+		prover.setBackend(Backend.RESOLUTION);
+		return prover.prove();
+	}
+
+	private boolean proveDefinitional(AnnotatedFormula... formulae) {
+		PropositionalProver prover = new PropositionalProver(formulae);
+		prover.setClausification(Clausification.DEFINITIONAL);
+		return prover.prove();
+	}
+
 	private boolean prove(AnnotatedFormula... formula) {
 		return prove(Arrays.asList(formula));
 	}
@@ -156,9 +1019,21 @@ public class ResolutionProverTest {
 
 	public static List<AnnotatedFormula> parseReader(Reader in)
 			throws RecognitionException, TokenStreamException {
+		return parse(new TptpLexer(in));
+	}
+
+	/**
+	 * Parses the given file through a {@link MappedInputBuffer}.
+	 */
+	public static List<AnnotatedFormula> parseFile(String filename)
+			throws RecognitionException, TokenStreamException, IOException {
+		return parse(new TptpLexer(MappedInputBuffer.map(new File(filename))));
+	}
+
+	private static List<AnnotatedFormula> parse(TptpLexer lexer)
+			throws RecognitionException, TokenStreamException {
 		LinkedList<AnnotatedFormula> formulae = new LinkedList<AnnotatedFormula>();
 		SimpleTptpParserOutput outputManager = new SimpleTptpParserOutput();
-		TptpLexer lexer = new TptpLexer(in);
 		TptpParser parser = new TptpParser(lexer);
 
 		TopLevelItem item;
@@ -1,20 +1,27 @@
 package tptp;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class Atomic extends Formula implements TptpParserOutput.AtomicFormula {
 
   public Atomic(String predicate, Iterable<TptpParserOutput.Term> arguments) {
-    _kind = Kind.Atomic;
+    super(Kind.Atomic);
     _predicate = predicate;
+    int hash = 31 * _predicate.hashCode();
     if (arguments != null) {
-      _arguments = new LinkedList<Term>();
+      List<Term> list = new ArrayList<Term>();
       for (TptpParserOutput.Term arg : arguments) {
-        _arguments.add((Term) arg);
+        list.add((Term) arg);
+        hash += list.size() * arg.hashCode();
       }
       ;
-    }
-    ;
+      // an empty argument list is no argument list, like in equals
+      _arguments = list.isEmpty() ? null : Collections.unmodifiableList(list);
+    } else
+      _arguments = null;
+    _hash = hash;
   }
 
   public String getPredicate() {
@@ -38,12 +45,22 @@ public class Atomic extends Formula implements TptpParserOutput.AtomicFormula {
       return false;
     if (this == obj)
       return true;
+    if (_interned && ((Formula) obj)._interned)
+      return false;
     return _kind == ((Formula) obj)._kind
         && _predicate.equals(((Atomic) obj)._predicate)
         && (_arguments == null ? ((Atomic) obj)._arguments == null : _arguments
             .equals(((Atomic) obj)._arguments));
   }
 
+  /** Orders by predicate, arity and then the arguments from left to right. */
+  int compareTo(Atomic o) {
+    int result = _predicate.compareTo(o._predicate);
+    if (result != 0)
+      return result;
+    return Term.compareArguments(_arguments, o._arguments);
+  }
+
   public String toString() {
     return toString(new String(""));
   }
@@ -70,16 +87,13 @@ public class Atomic extends Formula implements TptpParserOutput.AtomicFormula {
 
   @Override
   public int hashCode() {
-    int result = 31 * _predicate.hashCode();
-    if (_arguments != null)
-      for (int i = 0; i < _arguments.size(); i++) {
-        result += (i + 1) * _arguments.get(i).hashCode();
-      }
-    return result;
+    return _hash;
   }
 
-  private String _predicate;
+  private final String _predicate;
+
+  private final List<Term> _arguments;
 
-  private LinkedList<Term> _arguments = null;
+  private final int _hash;
 
 } // class Atomic
\ No newline at end of file
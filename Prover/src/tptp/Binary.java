@@ -7,10 +7,21 @@ public class Binary extends Formula {
                 TptpParserOutput.BinaryConnective connective,
                 TptpParserOutput.FofFormula rhs)
   {
-    _kind = Kind.Binary;
+    super(Kind.Binary);
     _lhs = (Formula)lhs;
     _connective = connective;
     _rhs = (Formula)rhs;
+
+    final int lhs_prime = 37;
+    int rhs_prime = lhs_prime;
+    
+    switch(_connective) {
+      case Implication:
+      case ReverseImplication:
+        rhs_prime = 41;
+    }
+    
+    _hash = _connective.customHashCode() + lhs_prime * _lhs.hashCode() + rhs_prime * _rhs.hashCode();
   }
 
   public TptpParserOutput.BinaryConnective getConnective() {
@@ -25,6 +36,7 @@ public class Binary extends Formula {
   public boolean equals(Object obj) {
     if (obj == null) return false;
     if (this == obj) return true;
+    if (_interned && ((Formula)obj)._interned) return false;
     return _kind == ((Formula)obj)._kind && 
     _connective == ((Binary)obj)._connective &&
     _lhs.equals(((Binary)obj)._lhs) &&
@@ -32,6 +44,16 @@ public class Binary extends Formula {
   }
 
 
+  /** Orders by connective, left and then right hand side. */
+  int compareTo(Binary o) {
+    if (_connective != o._connective)
+      return _connective.ordinal() < o._connective.ordinal() ? -1 : 1;
+    int result = _lhs.compareTo(o._lhs);
+    if (result != 0) return result;
+    return _rhs.compareTo(o._rhs);
+  }
+
+
   public String toString() { return toString(new String("")); }
 
   public String toString(String indent) {
@@ -40,21 +62,13 @@ public class Binary extends Formula {
   
   @Override
   public int hashCode() {
-    final int lhs_prime = 37;
-    int rhs_prime = lhs_prime;
-    
-    switch(_connective) {
-      case Implication:
-      case ReverseImplication:
-        rhs_prime = 41;
-    }
-    
-    return _connective.customHashCode() + lhs_prime * _lhs.hashCode() + rhs_prime * _rhs.hashCode();
+    return _hash;
   }
 
 
 
-  private Formula _lhs;
-  private TptpParserOutput.BinaryConnective _connective;
-  private Formula _rhs;
+  private final Formula _lhs;
+  private final TptpParserOutput.BinaryConnective _connective;
+  private final Formula _rhs;
+  private final int _hash;
 } // class Binary
\ No newline at end of file
@@ -5,10 +5,10 @@ public class BooleanAtomic extends Formula implements TptpParserOutput.AtomicFor
 	public static final BooleanAtomic TRUE = new BooleanAtomic(true);
 	public static final BooleanAtomic FALSE = new BooleanAtomic(false);
 	
-	public boolean value;
+	public final boolean value;
 
 	private BooleanAtomic(boolean value) {
-		_kind = Kind.Boolean;
+		super(Kind.Boolean);
 		this.value = value;
 	}
 	
@@ -32,6 +32,11 @@ public class BooleanAtomic extends Formula implements TptpParserOutput.AtomicFor
 		return true;
 	}
 	
+	/** Orders false before true. */
+	int compareTo(BooleanAtomic o) {
+		return value == o.value ? 0 : (value ? 1 : -1);
+	}
+
 	@Override
 	public String toString() {
 		return value ? "$true" : "$false";
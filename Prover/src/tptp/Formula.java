@@ -1,12 +1,19 @@
 package tptp;
 
+/**
+ * Immutable formula. Every kind computes its structural hash code once at
+ * construction, so hashing is constant time regardless of depth.
+ */
 public class Formula implements Comparable<Formula>, TptpParserOutput.FofFormula {
+    protected Formula(Kind kind) { _kind = kind; }
+
     public Kind getKind() { return _kind; }
     
     /** @param obj must be convertible to Formula, can be null */
     public boolean equals(Object obj) {
       if (obj == null) return false;
       if (this == obj) return true;
+      if (_interned && ((Formula)obj)._interned) return false;
       if (_kind != ((Formula)obj)._kind) return false;
       switch (_kind) 
       {
@@ -44,13 +51,43 @@ public class Formula implements Comparable<Formula>, TptpParserOutput.FofFormula
     
     //================== Attributes: =========================
     
-    protected Kind _kind;
+    protected final Kind _kind;
+
+    /** Set once this formula is the canonical instance in {@link FormulaFactory} */
+    boolean _interned;
+
+    /** Canonical complement, linked by {@link FormulaFactory#complement} */
+    volatile Formula _complement;
+
+    /** Random key of the canonical instance, see {@link FormulaFactory#key} */
+    long _key;
 
 
 
+    /**
+     * Structural total order consistent with {@link #equals(Object)}. Formulae
+     * are ordered by kind and then by their components, without rendering
+     * or allocating anything.
+     */
     @Override
     public int compareTo(Formula o) {
-      return toString().compareTo(o.toString());
+      if (this == o) return 0;
+      if (_kind != o._kind) return _kind.ordinal() < o._kind.ordinal() ? -1 : 1;
+      switch (_kind) 
+      {
+        case Atomic: 
+        return ((Atomic)this).compareTo((Atomic)o);
+        case Negation:
+        return ((Negation)this).compareTo((Negation)o);
+        case Binary:
+        return ((Binary)this).compareTo((Binary)o);
+        case Quantified:
+        return ((Quantified)this).compareTo((Quantified)o);
+        case Boolean:
+        return ((BooleanAtomic)this).compareTo((BooleanAtomic)o);
+      };
+      assert false;
+      return 0;
     }
     
   }
\ No newline at end of file
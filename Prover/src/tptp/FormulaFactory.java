@@ -0,0 +1,157 @@
+package tptp;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash-consing factory shared by the parser and the prover. Every formula
+ * created or interned here is the canonical instance of all structurally equal
+ * formulae, so equality of two canonical formulae is decided by comparing
+ * references, and the complement of a canonical formula is linked once
+ * computed. Formulae no longer referenced elsewhere are dropped from the
+ * table. Every canonical formula carries a random 64-bit key for Zobrist
+ * hashing of sets of formulae.
+ */
+public final class FormulaFactory {
+
+  private static final int STRIPES = 16;
+
+  /**
+   * Canonical instances, split into independently locked stripes by hash code
+   */
+  private static final Map<Formula, WeakReference<Formula>>[] _tables = newTables();
+
+  /**
+   * Source of the keys, every new canonical formula takes the next value
+   */
+  private static final AtomicLong _keys = new AtomicLong();
+
+  private FormulaFactory() {
+  }
+
+  private static Map<Formula, WeakReference<Formula>>[] newTables() {
+    // generic arrays cannot be created, the raw one only holds such maps
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Map<Formula, WeakReference<Formula>>[] tables = new Map[STRIPES];
+    for (int i = 0; i < STRIPES; i++)
+      tables[i] = new WeakHashMap<Formula, WeakReference<Formula>>();
+    return tables;
+  }
+
+  public static Atomic atomic(String predicate,
+      Iterable<TptpParserOutput.Term> arguments) {
+    return (Atomic) canonical(new Atomic(predicate, arguments));
+  }
+
+  /**
+   * @param argument
+   * @return The canonical negation of the given formula, double negations are
+   *         kept
+   */
+  public static Negation negation(Formula argument) {
+    return (Negation) canonical(new Negation(intern(argument)));
+  }
+
+  public static Binary binary(Formula lhs,
+      TptpParserOutput.BinaryConnective connective, Formula rhs) {
+    return (Binary) canonical(new Binary(intern(lhs), connective, intern(rhs)));
+  }
+
+  public static Quantified quantified(TptpParserOutput.Quantifier quantifier,
+      String variable, Formula matrix) {
+    return (Quantified) canonical(new Quantified(quantifier, variable,
+        intern(matrix)));
+  }
+
+  /**
+   * @param formula
+   * @return The argument of the given formula if it is a {@link Negation},
+   *         otherwise its canonical negation
+   */
+  public static Formula complement(Formula formula) {
+    Formula canonical = intern(formula);
+    Formula complement = canonical._complement;
+    if (complement == null) {
+      if (canonical.getKind() == Kind.Negation)
+        complement = ((Negation) canonical).getArgument();
+      else
+        complement = canonical(new Negation(canonical));
+      complement._complement = canonical;
+      canonical._complement = complement;
+    }
+    return complement;
+  }
+
+  /**
+   * @param formula
+   * @return Random key of the canonical instance of the given formula, equal
+   *         formulae have equal keys
+   */
+  public static long key(Formula formula) {
+    return intern(formula)._key;
+  }
+
+  /**
+   * @param formula
+   * @return The canonical instance of the given formula, which is the
+   *         formula itself if there is none yet
+   */
+  public static Formula intern(Formula formula) {
+    if (formula._interned)
+      return formula;
+    switch (formula.getKind()) {
+    case Negation:
+      Formula argument = ((Negation) formula).getArgument();
+      if (!argument._interned)
+        formula = new Negation(intern(argument));
+      break;
+    case Binary:
+      Binary binary = (Binary) formula;
+      if (!binary.getLhs()._interned || !binary.getRhs()._interned)
+        formula = new Binary(intern(binary.getLhs()), binary.getConnective(),
+            intern(binary.getRhs()));
+      break;
+    case Quantified:
+      Quantified quantified = (Quantified) formula;
+      if (!quantified.getMatrix()._interned)
+        formula = new Quantified(quantified.getQuantifier(),
+            quantified.getVariable(), intern(quantified.getMatrix()));
+      break;
+    default:
+      break;
+    }
+    return canonical(formula);
+  }
+
+  /**
+   * @param formula
+   *          whose subformulae are canonical
+   * @return The canonical instance of the given formula
+   */
+  private static Formula canonical(Formula formula) {
+    int hash = formula.hashCode();
+    Map<Formula, WeakReference<Formula>> table = _tables[(hash ^ (hash >>> 16))
+        & (STRIPES - 1)];
+    synchronized (table) {
+      WeakReference<Formula> reference = table.get(formula);
+      Formula canonical = reference == null ? null : reference.get();
+      if (canonical != null)
+        return canonical;
+      formula._key = mix(_keys.incrementAndGet());
+      formula._interned = true;
+      table.put(formula, new WeakReference<Formula>(formula));
+      return formula;
+    }
+  }
+
+  /**
+   * Finalizer of SplitMix64, spreads consecutive values over all bits
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,210 @@
+package tptp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+
+/**
+ * Replaces include directives by the top-level items of the included files,
+ * recursively. Included files are parsed once per resolver: the parsed items
+ * are kept in a cache of the resolver, keyed by the canonical path and the
+ * modification time of the file, so a changed file is parsed again. Items are
+ * immutable, hence the cached ones are handed out to every problem resolved
+ * by the same resolver, which may be used by several threads. A formula
+ * selection keeps only the named items of the included file. A file
+ * including itself, directly or through other files, is rejected.
+ */
+public class IncludeResolver {
+
+  private static final int MAX_DEPTH = 1024;
+
+  /**
+   * Parsed items of a file as of its modification time
+   */
+  private static class Parsed {
+    final long modified;
+    final FutureTask<List<TopLevelItem>> items;
+
+    Parsed(long modified, FutureTask<List<TopLevelItem>> items) {
+      this.modified = modified;
+      this.items = items;
+    }
+  }
+
+  private final ConcurrentMap<String, Parsed> cache = new ConcurrentHashMap<String, Parsed>();
+
+  private final File includeDir;
+
+  /**
+   * @param includeDir
+   *          directory the included file names are relative to
+   */
+  public IncludeResolver(File includeDir) {
+    this.includeDir = includeDir;
+  }
+
+  /**
+   * Replaces the include directives among the given items by the items of the
+   * included files.
+   *
+   * @param items
+   * @return The given items with the included ones in place of the include
+   *         directives
+   * @throws IOException
+   *           if an included file cannot be read, includes itself or
+   *           includes are nested too deeply
+   * @throws RecognitionException
+   *           if an included file cannot be parsed
+   * @throws TokenStreamException
+   *           if an included file cannot be tokenized
+   */
+  public List<TopLevelItem> resolve(List<TopLevelItem> items)
+      throws IOException, RecognitionException, TokenStreamException {
+    return resolve(items, new LinkedHashSet<String>());
+  }
+
+  /**
+   * Parses the given file, resolving its include directives. Only the
+   * included files are cached, not the given one.
+   *
+   * @param file
+   * @return The items of the file with the included ones in place of the
+   *         include directives
+   */
+  public List<TopLevelItem> parse(File file) throws IOException,
+      RecognitionException, TokenStreamException {
+    Set<String> including = new LinkedHashSet<String>();
+    including.add(file.getCanonicalPath());
+    return resolve(ParallelTptpParser.parse(file, new SimpleTptpParserOutput(),
+        Runtime.getRuntime().availableProcessors()), including);
+  }
+
+  /**
+   * Forgets all files parsed so far.
+   */
+  public void clearCache() {
+    cache.clear();
+  }
+
+  /**
+   * @param including
+   *          canonical paths of the files whose includes are being resolved,
+   *          outermost first
+   */
+  private List<TopLevelItem> resolve(List<TopLevelItem> items,
+      Set<String> including) throws IOException, RecognitionException,
+      TokenStreamException {
+    List<TopLevelItem> resolved = new ArrayList<TopLevelItem>(items.size());
+    for (TopLevelItem item : items) {
+      if (item.getKind() != TptpParserOutput.TptpInput.Kind.Include) {
+        resolved.add(item);
+        continue;
+      }
+      if (including.size() > MAX_DEPTH)
+        throw new IOException("Too many nested include directives (depth > "
+            + MAX_DEPTH + ")");
+      IncludeDirective include = (IncludeDirective) item;
+      File file = file(include);
+      String path = file.getCanonicalPath();
+      if (!including.add(path))
+        throw new IOException("Include cycle " + including + " -> " + path);
+      List<TopLevelItem> included;
+      try {
+        included = resolve(parseCached(file, path), including);
+      } finally {
+        including.remove(path);
+      }
+      if (include.getFormulaSelection() == null) {
+        resolved.addAll(included);
+      } else {
+        Set<String> selection = new HashSet<String>();
+        for (String name : include.getFormulaSelection())
+          selection.add(name);
+        for (TopLevelItem includedItem : included) {
+          if (selection.contains(name(includedItem)))
+            resolved.add(includedItem);
+        }
+      }
+    }
+    return resolved;
+  }
+
+  private File file(IncludeDirective include) {
+    // the file name is quoted
+    String fileName = include.getFileName();
+    return new File(includeDir, fileName.substring(1, fileName.length() - 1));
+  }
+
+  private static String name(TopLevelItem item) {
+    if (item instanceof AnnotatedFormula)
+      return ((AnnotatedFormula) item).getName();
+    if (item instanceof AnnotatedClause)
+      return ((AnnotatedClause) item).getName();
+    return null;
+  }
+
+  /**
+   * Returns the cached items of the given file, parsing it if it is not
+   * cached or was modified since. Concurrent requests of the same file wait
+   * for one parse.
+   */
+  private List<TopLevelItem> parseCached(final File file, String path)
+      throws IOException, RecognitionException, TokenStreamException {
+    long modified = file.lastModified();
+    if (modified == 0L)
+      throw new IOException("Cannot read included file " + file);
+    Parsed parsed = cache.get(path);
+    if (parsed == null || parsed.modified != modified) {
+      Parsed parsing = new Parsed(modified, new FutureTask<List<TopLevelItem>>(
+          new Callable<List<TopLevelItem>>() {
+            @Override
+            public List<TopLevelItem> call() throws Exception {
+              return Collections.unmodifiableList(ParallelTptpParser.parse(
+                  file, new SimpleTptpParserOutput(), Runtime.getRuntime()
+                      .availableProcessors()));
+            }
+          }));
+      boolean won = parsed == null ? cache.putIfAbsent(path, parsing) == null
+          : cache.replace(path, parsed, parsing);
+      parsed = won ? parsing : cache.get(path);
+      if (won)
+        parsing.items.run();
+      else if (parsed == null)
+        return parseCached(file, path);
+    }
+    try {
+      return parsed.items.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while parsing " + file, e);
+    } catch (ExecutionException e) {
+      // a failed parse is not cached
+      cache.remove(path, parsed);
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof RecognitionException)
+        throw (RecognitionException) cause;
+      if (cause instanceof TokenStreamException)
+        throw (TokenStreamException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package tptp;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import antlr.CharScanner;
+import antlr.InputBuffer;
+
+/**
+ * Input of the {@link TptpLexer} reading the characters right from a
+ * {@link ByteBuffer}, usually a memory mapped file. Unlike
+ * {@link antlr.CharBuffer} and {@link antlr.ByteBuffer}, which pull every
+ * character through a stream into a queue, the lookahead, marks and rewinds
+ * are mere positions in the buffer. Every byte is one character, as TPTP
+ * files are plain ASCII.
+ */
+public class MappedInputBuffer extends InputBuffer {
+
+  private final ByteBuffer bytes;
+  private final int limit;
+  /**
+   * Position of the first lookahead character
+   */
+  private int position;
+  /**
+   * Position of the outermost mark
+   */
+  private int marked;
+
+  /**
+   * @param bytes
+   *          input from its position up to its limit, which is not changed
+   */
+  public MappedInputBuffer(ByteBuffer bytes) {
+    this.bytes = bytes;
+    this.position = bytes.position();
+    this.limit = bytes.limit();
+  }
+
+  /**
+   * Maps the given file into memory.
+   *
+   * @param file
+   * @return A {@link MappedInputBuffer} reading the whole file
+   * @throws IOException
+   *           if the file cannot be mapped
+   */
+  public static MappedInputBuffer map(File file) throws IOException {
+    return new MappedInputBuffer(mapBytes(file));
+  }
+
+  /**
+   * @param file
+   * @return The whole file mapped into memory read-only
+   * @throws IOException
+   *           if the file cannot be mapped
+   */
+  static ByteBuffer mapBytes(File file) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      // the mapping stays valid when the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      in.close();
+    }
+  }
+
+  @Override
+  public char LA(int i) {
+    int index = position + i - 1;
+    return index < limit ? (char) (bytes.get(index) & 0xFF)
+        : CharScanner.EOF_CHAR;
+  }
+
+  @Override
+  public void consume() {
+    position++;
+  }
+
+  @Override
+  public void fill(int amount) {
+    // everything is available already
+  }
+
+  @Override
+  public int mark() {
+    if (nMarkers++ == 0)
+      marked = position;
+    return position;
+  }
+
+  @Override
+  public void rewind(int mark) {
+    position = mark;
+    nMarkers--;
+  }
+
+  @Override
+  public void commit() {
+    nMarkers--;
+  }
+
+  @Override
+  public void reset() {
+    nMarkers = 0;
+  }
+
+  @Override
+  public String getLAChars() {
+    return characters(position, limit);
+  }
+
+  @Override
+  public String getMarkedChars() {
+    return isMarked() ? characters(marked, position) : "";
+  }
+
+  private String characters(int from, int to) {
+    StringBuilder builder = new StringBuilder(to - from);
+    for (int i = from; i < to; i++)
+      builder.append((char) (bytes.get(i) & 0xFF));
+    return builder.toString();
+  }
+}
@@ -3,8 +3,10 @@ package tptp;
 public class Negation extends Formula {
 
   public Negation(TptpParserOutput.FofFormula argument) {
-    _kind = Kind.Negation;
+    super(Kind.Negation);
     _argument = (Formula) argument;
+    _hash = _argument._kind == Kind.Negation ? ((Negation) _argument)._argument
+        .hashCode() : (_argument.hashCode() + 1);
   }
 
   /** Returns the formula under the negation. */
@@ -21,10 +23,16 @@ public class Negation extends Formula {
       return false;
     if (this == obj)
       return true;
+    if (_interned && ((Formula) obj)._interned)
+      return false;
     return _kind == ((Formula) obj)._kind
         && _argument.equals(((Negation) obj)._argument);
   }
 
+  int compareTo(Negation o) {
+    return _argument.compareTo(o._argument);
+  }
+
   public String toString() {
     return toString(new String(""));
   }
@@ -35,9 +43,10 @@ public class Negation extends Formula {
 
   @Override
   public int hashCode() {
-    return _argument._kind == Kind.Negation ? ((Negation) _argument)._argument.hashCode()
-        : (_argument.hashCode() + 1);
+    return _hash;
   }
 
-  private Formula _argument;
+  private final Formula _argument;
+
+  private final int _hash;
 } // class Negation
\ No newline at end of file
@@ -0,0 +1,216 @@
+package tptp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+
+/**
+ * Parses the top-level items of a TPTP file on several threads. A pre-scan
+ * splits the input into chunks of whole items, finding the dot ending an
+ * item outside of parentheses, quotes and comments. Every chunk is parsed by
+ * its own {@link TptpParser} into its own {@link SimpleTptpParserOutput},
+ * which are merged into the given output afterwards. The items are returned
+ * in the order of the input and carry the line numbers of the whole input.
+ * Bound variables are named per formula by the output, so the items equal
+ * those of a sequential parse regardless of the chunks and threads.
+ */
+public class ParallelTptpParser {
+
+  /**
+   * Number of chunks per thread, so that threads finishing early take over
+   * the remaining chunks
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  /**
+   * Contiguous range of whole top-level items
+   */
+  private static class Chunk implements Callable<List<TopLevelItem>> {
+    private final ByteBuffer bytes;
+    private final int line;
+    private final int column;
+    final SimpleTptpParserOutput output = new SimpleTptpParserOutput();
+
+    Chunk(ByteBuffer bytes, int line, int column) {
+      this.bytes = bytes;
+      this.line = line;
+      this.column = column;
+    }
+
+    @Override
+    public List<TopLevelItem> call() throws RecognitionException,
+        TokenStreamException {
+      TptpLexer lexer = new TptpLexer(new MappedInputBuffer(bytes));
+      lexer.setLine(line);
+      lexer.setColumn(column);
+      TptpParser parser = new TptpParser(lexer);
+      List<TopLevelItem> items = new ArrayList<TopLevelItem>();
+      TopLevelItem item;
+      while ((item = (TopLevelItem) parser.topLevelItem(output)) != null)
+        items.add(item);
+      return items;
+    }
+  }
+
+  private ParallelTptpParser() {
+  }
+
+  /**
+   * Maps the given file into memory and parses it.
+   *
+   * @see #parse(ByteBuffer, SimpleTptpParserOutput, int)
+   */
+  public static List<TopLevelItem> parse(File file,
+      SimpleTptpParserOutput output, int threads) throws IOException,
+      RecognitionException, TokenStreamException {
+    return parse(MappedInputBuffer.mapBytes(file), output, threads);
+  }
+
+  /**
+   * Parses all top-level items of the given input. Include directives are
+   * returned like any other item.
+   *
+   * @param bytes
+   *          input from its position up to its limit, which is not changed
+   * @param output
+   *          {@link SimpleTptpParserOutput} the outputs of the threads are
+   *          merged into
+   * @param threads
+   *          maximum number of threads parsing at once
+   * @return The top-level items in the order of the input
+   * @throws RecognitionException
+   *           if a chunk cannot be parsed, the first one in input order
+   * @throws TokenStreamException
+   *           if a chunk cannot be tokenized, the first one in input order
+   */
+  public static List<TopLevelItem> parse(ByteBuffer bytes,
+      SimpleTptpParserOutput output, int threads) throws RecognitionException,
+      TokenStreamException {
+    int chunkCount = Math.max(1, threads * CHUNKS_PER_THREAD);
+    List<Chunk> chunks = split(bytes, (bytes.remaining() + chunkCount - 1)
+        / chunkCount);
+    List<TopLevelItem> items = new ArrayList<TopLevelItem>();
+    if (threads <= 1 || chunks.size() <= 1) {
+      for (Chunk chunk : chunks)
+        items.addAll(chunk.call());
+    } else {
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+          threads, chunks.size()));
+      try {
+        for (Future<List<TopLevelItem>> result : executor.invokeAll(chunks))
+          items.addAll(result.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while parsing", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RecognitionException)
+          throw (RecognitionException) cause;
+        if (cause instanceof TokenStreamException)
+          throw (TokenStreamException) cause;
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw new IllegalStateException(cause);
+      } finally {
+        executor.shutdown();
+      }
+    }
+    for (Chunk chunk : chunks)
+      output.merge(chunk.output);
+    return items;
+  }
+
+  /**
+   * Splits the input after the first item ending at least the given number of
+   * bytes after the previous split.
+   *
+   * @param bytes
+   * @param size
+   *          minimum number of bytes of a chunk
+   * @return The chunks covering the whole input
+   */
+  private static List<Chunk> split(ByteBuffer bytes, int size) {
+    List<Chunk> chunks = new ArrayList<Chunk>();
+    int start = bytes.position();
+    int limit = bytes.limit();
+    int startLine = 1;
+    int startColumn = 1;
+    int line = 1;
+    int lineStart = start;
+    int depth = 0;
+    for (int i = start; i < limit; i++) {
+      byte b = bytes.get(i);
+      switch (b) {
+      case '\n':
+        line++;
+        lineStart = i + 1;
+        break;
+      case '(':
+        depth++;
+        break;
+      case ')':
+        depth--;
+        break;
+      case '\'':
+      case '"':
+        // skip the quoted text, backslash escapes the next character
+        for (i++; i < limit && bytes.get(i) != b; i++) {
+          if (bytes.get(i) == '\\')
+            i++;
+          else if (bytes.get(i) == '\n') {
+            line++;
+            lineStart = i + 1;
+          }
+        }
+        break;
+      case '%':
+        while (i + 1 < limit && bytes.get(i + 1) != '\n')
+          i++;
+        break;
+      case '/':
+        if (i + 1 < limit && bytes.get(i + 1) == '*') {
+          for (i += 2; i + 1 < limit
+              && !(bytes.get(i) == '*' && bytes.get(i + 1) == '/'); i++) {
+            if (bytes.get(i) == '\n') {
+              line++;
+              lineStart = i + 1;
+            }
+          }
+          i++;
+        }
+        break;
+      case '.':
+        if (depth == 0 && i + 1 - start >= size) {
+          chunks.add(new Chunk(slice(bytes, start, i + 1), startLine,
+              startColumn));
+          start = i + 1;
+          startLine = line;
+          startColumn = start - lineStart + 1;
+        }
+        break;
+      }
+    }
+    if (start < limit || chunks.isEmpty())
+      chunks.add(new Chunk(slice(bytes, start, limit), startLine, startColumn));
+    return chunks;
+  }
+
+  private static ByteBuffer slice(ByteBuffer bytes, int from, int to) {
+    ByteBuffer slice = bytes.duplicate();
+    slice.limit(to);
+    slice.position(from);
+    return slice;
+  }
+}
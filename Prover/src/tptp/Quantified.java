@@ -7,10 +7,11 @@ public class Quantified extends Formula {
                     String variable,
                     TptpParserOutput.FofFormula matrix)
   {
-    _kind = Kind.Quantified;
+    super(Kind.Quantified);
     _quantifier = quantifier;
     _variable = variable;
     _matrix = (Formula)matrix;
+    _hash = 43 * (_quantifier.ordinal() + 1) + 47 * _variable.hashCode() + _matrix.hashCode();
   }
 
   public TptpParserOutput.Quantifier getQuantifier() {
@@ -25,6 +26,7 @@ public class Quantified extends Formula {
   public boolean equals(Object obj) {
     if (obj == null) return false;
     if (this == obj) return true;
+    if (_interned && ((Formula)obj)._interned) return false;
     return _kind == ((Formula)obj)._kind && 
     _quantifier == ((Quantified)obj)._quantifier &&
     _variable.equals(((Quantified)obj)._variable) &&
@@ -32,6 +34,22 @@ public class Quantified extends Formula {
   }
 
 
+  @Override
+  public int hashCode() {
+    return _hash;
+  }
+
+
+  /** Orders by quantifier, variable and then matrix. */
+  int compareTo(Quantified o) {
+    if (_quantifier != o._quantifier)
+      return _quantifier.ordinal() < o._quantifier.ordinal() ? -1 : 1;
+    int result = _variable.compareTo(o._variable);
+    if (result != 0) return result;
+    return _matrix.compareTo(o._matrix);
+  }
+
+
   public String toString() { return toString(new String("")); }
 
   public String toString(String indent) {
@@ -40,7 +58,8 @@ public class Quantified extends Formula {
   }
 
 
-  private TptpParserOutput.Quantifier _quantifier;
-  private String _variable;
-  private Formula _matrix;
+  private final TptpParserOutput.Quantifier _quantifier;
+  private final String _variable;
+  private final Formula _matrix;
+  private final int _hash;
 } // class Quantified
\ No newline at end of file
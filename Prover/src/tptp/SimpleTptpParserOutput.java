@@ -1,7 +1,11 @@
 package tptp;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.internal.matchers.SubstringMatcher;
 
@@ -24,7 +28,9 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
       TptpParserOutput.FormulaRole role, TptpParserOutput.FofFormula formula,
       TptpParserOutput.Annotations annotations, int lineNumber) {
     return (TptpParserOutput.TptpInput) (new AnnotatedFormula(
-        sharedCopyOf(name), role, formula, annotations, lineNumber));
+        sharedCopyOf(name), role, renameBoundVariables((Formula) formula,
+            new HashMap<String, String>(), new int[1]), annotations,
+        lineNumber));
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
@@ -50,26 +56,14 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
       TptpParserOutput.FofFormula lhs,
       TptpParserOutput.BinaryConnective connective,
       TptpParserOutput.FofFormula rhs) {
-    Formula key = tptp_tester.replaceEquivalences(new Binary(lhs, connective,
-        rhs));
-    Formula res = _formulaTable.get(key);
-    if (res == null) {
-      _formulaTable.put(key, key);
-      return key;
-    } else
-      return res;
+    return FormulaFactory.intern(tptp_tester.replaceEquivalences(new Binary(
+        lhs, connective, rhs)));
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
   public TptpParserOutput.FofFormula createNegationOf(
       TptpParserOutput.FofFormula formula) {
-    Formula key = new Negation(formula);
-    Formula res = _formulaTable.get(key);
-    if (res == null) {
-      _formulaTable.put(key, key);
-      return key;
-    } else
-      return res;
+    return FormulaFactory.negation((Formula) formula);
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
@@ -77,26 +71,12 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
       TptpParserOutput.Quantifier quantifier, Iterable<String> variableList,
       TptpParserOutput.FofFormula formula) {
     assert variableList != null && variableList.iterator().hasNext();
+    // the bound variables are renamed once the whole formula is parsed
     TptpParserOutput.FofFormula key = formula;
-    for (String var : variableList) {
-      tptp.Term boundVariableTerm = (tptp.Term) this.createVariableTerm(var);
-      String freshVar = tptp_tester.freshVariableName();
-      tptp.Term replaceTerm = (tptp.Term) this.createVariableTerm(freshVar);
-      Quantified quantified = new Quantified(quantifier, sharedCopyOf(freshVar),
-          tptp_tester.substituteFormula((Formula) key, boundVariableTerm,
-              replaceTerm, this));
-      key = (TptpParserOutput.FofFormula) (quantified);
-    }
-    ;
-
-    // Here the key is fully formed
-
-    Formula res = _formulaTable.get((Formula) key);
-    if (res == null) {
-      _formulaTable.put((Formula) key, (Formula) key);
-      return key;
-    } else
-      return res;
+    for (String var : variableList)
+      key = FormulaFactory.quantified(quantifier, sharedCopyOf(var),
+          (Formula) key);
+    return key;
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
@@ -127,26 +107,14 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
   public TptpParserOutput.AtomicFormula createPlainAtom(String predicate,
       Iterable<TptpParserOutput.Term> arguments) {
     assert arguments == null || arguments.iterator().hasNext();
-    Formula key = new Atomic(sharedCopyOf(predicate), arguments);
-    Formula res = _formulaTable.get(key);
-    if (res == null) {
-      _formulaTable.put(key, key);
-      return (TptpParserOutput.AtomicFormula) key;
-    } else
-      return (TptpParserOutput.AtomicFormula) res;
+    return FormulaFactory.atomic(sharedCopyOf(predicate), arguments);
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
   public TptpParserOutput.AtomicFormula createSystemAtom(String predicate,
       Iterable<TptpParserOutput.Term> arguments) {
     assert arguments == null || arguments.iterator().hasNext();
-    Formula key = new Atomic(sharedCopyOf(predicate), arguments);
-    Formula res = _formulaTable.get(key);
-    if (res == null) {
-      _formulaTable.put(key, key);
-      return (TptpParserOutput.AtomicFormula) key;
-    } else
-      return (TptpParserOutput.AtomicFormula) res;
+    return FormulaFactory.atomic(sharedCopyOf(predicate), arguments);
   }
 
   /** Implements the corresponding spec in TptpParserOutput. */
@@ -327,25 +295,128 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
     _stringTable = new Hashtable<String, String>();
     _termTable = new Hashtable<Term, Term>();
     _literalTable = new Hashtable<Literal, Literal>();
-    _formulaTable = new Hashtable<Formula, Formula>();
   } // SimpleTptpParserOutput()
 
   /**
    * Reinitialises everything. Note that after a call to reset() objects created
    * by various method calls prior to that call to reset(), are considered
-   * invalid and should not be used in any way.
+   * invalid and should not be used in any way. Formula objects are shared
+   * through {@link FormulaFactory} and stay valid.
    */
   public void reset() {
     _stringTable.clear();
     _termTable.clear();
     _literalTable.clear();
-    _formulaTable.clear();
+  }
+
+  /**
+   * Takes over the strings, terms and literals shared by the given output, so
+   * that objects created afterwards share them, too. Objects already shared
+   * by this output are kept.
+   * 
+   * @param other
+   *          output no longer used by another thread
+   */
+  public void merge(SimpleTptpParserOutput other) {
+    mergeInto(_stringTable, other._stringTable);
+    mergeInto(_termTable, other._termTable);
+    mergeInto(_literalTable, other._literalTable);
+  }
+
+  private static <T> void mergeInto(Hashtable<T, T> table, Hashtable<T, T> other) {
+    for (T key : other.keySet()) {
+      if (!table.containsKey(key))
+        table.put(key, key);
+    }
   }
 
   /*-------------------------------------------------*/
   /* Private methods: */
   /*-------------------------------------------------*/
 
+  /**
+   * Renames the bound variables of the given formula to X1, X2, ... in the
+   * order of their quantifiers, which is the only renaming done while
+   * parsing. The names only depend on the formula itself, not on the
+   * formulae parsed before, possibly by other threads. They are unique within
+   * the formula, not among formulae, and never clash with the names of
+   * {@link tptp_tester#freshVariableName()}. Provers dropping quantifiers
+   * have to rename the variables of different formulae apart.
+   * 
+   * @param formula
+   * @param names
+   *          new names of the variables bound at the given formula
+   * @param count
+   *          number of quantifiers renamed so far
+   * @return The renamed formula, the given one if nothing was renamed
+   */
+  private Formula renameBoundVariables(Formula formula,
+      Map<String, String> names, int[] count) {
+    switch (formula.getKind()) {
+    case Atomic:
+      if (names.isEmpty())
+        return formula;
+      Atomic atomic = (Atomic) formula;
+      List<TptpParserOutput.Term> arguments = renameBoundVariables(atomic
+          .getArguments(), names);
+      return arguments == null ? formula : FormulaFactory.atomic(atomic
+          .getPredicate(), arguments);
+    case Negation:
+      Formula argument = ((Negation) formula).getArgument();
+      Formula renamed = renameBoundVariables(argument, names, count);
+      return renamed == argument ? formula : FormulaFactory.negation(renamed);
+    case Binary:
+      Binary binary = (Binary) formula;
+      Formula lhs = renameBoundVariables(binary.getLhs(), names, count);
+      Formula rhs = renameBoundVariables(binary.getRhs(), names, count);
+      return lhs == binary.getLhs() && rhs == binary.getRhs() ? formula
+          : FormulaFactory.binary(lhs, binary.getConnective(), rhs);
+    case Quantified:
+      Quantified quantified = (Quantified) formula;
+      String variable = quantified.getVariable();
+      String name = sharedCopyOf(BOUND_VARIABLE_PREFIX + ++count[0]);
+      String shadowed = names.put(variable, name);
+      Formula matrix = renameBoundVariables(quantified.getMatrix(), names,
+          count);
+      if (shadowed != null)
+        names.put(variable, shadowed);
+      else
+        names.remove(variable);
+      return FormulaFactory.quantified(quantified.getQuantifier(), name,
+          matrix);
+    default:
+      return formula;
+    }
+  }
+
+  /**
+   * @return The renamed terms or <code>null</code> if nothing was renamed
+   */
+  private List<TptpParserOutput.Term> renameBoundVariables(
+      Iterable<tptp.Term> terms, Map<String, String> names) {
+    if (terms == null)
+      return null;
+    List<TptpParserOutput.Term> renamed = new ArrayList<TptpParserOutput.Term>();
+    boolean changed = false;
+    for (tptp.Term term : terms) {
+      TptpParserOutput.Term renamedTerm = term;
+      Symbol symbol = term.getTopSymbol();
+      if (symbol.isVariable()) {
+        String name = names.get(symbol.getText());
+        if (name != null)
+          renamedTerm = createVariableTerm(name);
+      } else {
+        List<TptpParserOutput.Term> arguments = renameBoundVariables(term
+            .getArguments(), names);
+        if (arguments != null)
+          renamedTerm = createPlainTerm(symbol.getText(), arguments);
+      }
+      changed |= renamedTerm != term;
+      renamed.add(renamedTerm);
+    }
+    return changed ? renamed : null;
+  }
+
   /**
    * Returns the copy of <strong> str </strong> stored in _stringTable; the copy
    * is created if necessary.
@@ -366,6 +437,9 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
   /* Attributes: */
   /*-------------------------------------------------*/
 
+  /** Prefix of the names of bound variables after parsing. */
+  private static final String BOUND_VARIABLE_PREFIX = "X";
+
   /** Maintains sharing of String objects. */
   private Hashtable<String, String> _stringTable;
 
@@ -383,11 +457,4 @@ public class SimpleTptpParserOutput implements TptpParserOutput {
    */
   private Hashtable<Literal, Literal> _literalTable;
 
-  /**
-   * Maintains sharing of Formula objects.
-   * 
-   * @see methods for creating different kinds of Formula objects
-   */
-  private Hashtable<Formula, Formula> _formulaTable;
-
 } // class SimpleParserOutput
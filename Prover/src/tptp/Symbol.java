@@ -1,6 +1,6 @@
 package tptp;
 
-public class Symbol {
+public class Symbol implements Comparable<Symbol> {
     
     public Symbol(String text,boolean isVariable) {
       _text = text;
@@ -22,6 +22,13 @@ public class Symbol {
       return 31 * _text.hashCode() + ((_isVariable)? 1 : 0);
     }
     
+    /** Orders by text, constants before variables of the same name. */
+    public int compareTo(Symbol o) {
+      int result = _text.compareTo(o._text);
+      if (result != 0) return result;
+      return _isVariable == o._isVariable ? 0 : (_isVariable ? 1 : -1);
+    }
+    
     public String toString() { return _text; }
     
     public String toString(String indent) {
@@ -29,8 +36,8 @@ public class Symbol {
     }
     
     
-    private String _text; 
+    private final String _text; 
     
-    private boolean _isVariable;
+    private final boolean _isVariable;
     
   } // class Symbol
\ No newline at end of file
@@ -1,19 +1,28 @@
 package tptp;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
-public class Term implements TptpParserOutput.Term {
+/**
+ * Immutable term, its structural hash code is computed at construction.
+ */
+public class Term implements TptpParserOutput.Term, Comparable<Term> {
 
   public Term(Symbol topSymbol, Iterable<TptpParserOutput.Term> arguments) {
     _topSymbol = topSymbol;
     if (arguments != null) {
-      _arguments = new LinkedList<Term>();
+      List<Term> list = new ArrayList<Term>();
       for (TptpParserOutput.Term arg : arguments) {
-        _arguments.add((Term) arg);
+        list.add((Term) arg);
       }
       ;
-    }
-    ;
+      // an empty argument list is no argument list, like in equals
+      _arguments = list.isEmpty() ? null : Collections.unmodifiableList(list);
+    } else
+      _arguments = null;
+    _hash = 31 * _topSymbol.hashCode()
+        + ((_arguments == null) ? 0 : _arguments.hashCode());
   }
 
   public Symbol getTopSymbol() {
@@ -43,8 +52,44 @@ public class Term implements TptpParserOutput.Term {
   }
 
   public int hashCode() {
-    return 31 * _topSymbol.hashCode()
-        + ((_arguments == null) ? 0 : _arguments.hashCode());
+    return _hash;
+  }
+
+  /**
+   * Structural total order consistent with {@link #equals(Object)}, by top
+   * symbol, arity and then the arguments from left to right.
+   */
+  @Override
+  public int compareTo(Term o) {
+    if (this == o)
+      return 0;
+    int result = _topSymbol.compareTo(o._topSymbol);
+    if (result != 0)
+      return result;
+    return compareArguments(_arguments, o._arguments);
+  }
+
+  /**
+   * Compares argument lists by length and then element-wise. The constructors
+   * store no arguments as null only, so lists compare equal iff they are
+   * equal.
+   *
+   * @param arguments1
+   *          null for no arguments, otherwise not empty
+   * @param arguments2
+   *          null for no arguments, otherwise not empty
+   */
+  static int compareArguments(List<Term> arguments1, List<Term> arguments2) {
+    int size1 = arguments1 == null ? 0 : arguments1.size();
+    int size2 = arguments2 == null ? 0 : arguments2.size();
+    if (size1 != size2)
+      return size1 < size2 ? -1 : 1;
+    for (int i = 0; i < size1; i++) {
+      int result = arguments1.get(i).compareTo(arguments2.get(i));
+      if (result != 0)
+        return result;
+    }
+    return 0;
   }
 
   public String toString() {
@@ -64,8 +109,10 @@ public class Term implements TptpParserOutput.Term {
     return res;
   }
 
-  private Symbol _topSymbol;
+  private final Symbol _topSymbol;
+
+  private final List<Term> _arguments;
 
-  private LinkedList<Term> _arguments = null;
+  private final int _hash;
 
 }
\ No newline at end of file
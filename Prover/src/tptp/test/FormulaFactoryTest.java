@@ -0,0 +1,49 @@
+package tptp.test;
+
+import static org.junit.Assert.*;
+import static resolutionprover.test.ResolutionProverTest.parseFormula;
+
+import java.io.FileNotFoundException;
+
+import org.junit.Test;
+
+import antlr.RecognitionException;
+import antlr.TokenStreamException;
+import tptp.Atomic;
+import tptp.Binary;
+import tptp.Formula;
+import tptp.FormulaFactory;
+import tptp.Negation;
+import tptp.TptpParserOutput.BinaryConnective;
+
+public class FormulaFactoryTest {
+
+  @Test
+  public void parsedFormulaeShouldBeShared() throws RecognitionException,
+      TokenStreamException, FileNotFoundException {
+    Formula first = parseFormula("(a & ~b) => c").getFormula();
+    Formula second = parseFormula("(a & ~b) => c").getFormula();
+    assertSame(first, second);
+  }
+
+  @Test
+  public void internShouldReturnCanonicalInstance() {
+    Formula canonical = FormulaFactory.binary(FormulaFactory.atomic("p", null),
+        BinaryConnective.Or, FormulaFactory.atomic("q", null));
+    Formula copy = new Binary(new Atomic("p", null), BinaryConnective.Or,
+        new Atomic("q", null));
+    assertNotSame(canonical, copy);
+    assertSame(canonical, FormulaFactory.intern(copy));
+  }
+
+  @Test
+  public void complementShouldBeLinked() {
+    Formula atom = FormulaFactory.atomic("r", null);
+    Formula complement = FormulaFactory.complement(atom);
+    assertTrue(complement instanceof Negation);
+    assertSame(atom, ((Negation) complement).getArgument());
+    assertSame(complement, FormulaFactory.complement(atom));
+    assertSame(atom, FormulaFactory.complement(complement));
+    assertSame(complement, FormulaFactory.complement(new Atomic("r", null)));
+  }
+}
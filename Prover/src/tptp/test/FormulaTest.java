@@ -1,6 +1,8 @@
 package tptp.test;
 
 import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -10,7 +12,13 @@ import org.junit.Test;
 
 import antlr.RecognitionException;
 import antlr.TokenStreamException;
+import tptp.Atomic;
 import tptp.Formula;
+import tptp.Quantified;
+import tptp.Symbol;
+import tptp.Term;
+import tptp.TptpParserOutput;
+import tptp.TptpParserOutput.Quantifier;
 
 import static org.junit.Assert.*;
 import static resolutionprover.test.ResolutionProverTest.parseFormula;
@@ -60,6 +68,45 @@ public class FormulaTest {
     assertTrue(allHashesEqual(sNot2));
   }
 
+  @Test
+  public void quantifiedShouldEqualStructurally() {
+    Formula first = new Quantified(Quantifier.ForAll, "X", new Atomic("p", null));
+    Formula second = new Quantified(Quantifier.ForAll, "X", new Atomic("p", null));
+    Formula other = new Quantified(Quantifier.Exists, "X", new Atomic("p", null));
+    assertEquals(first, second);
+    assertTrue(allHashesEqual(first, second));
+    assertTrue(allHashesDiffer(first, other));
+  }
+
+  @Test
+  public void compareToShouldBeStructural() throws RecognitionException,
+      TokenStreamException, FileNotFoundException {
+    Formula[] sorted = { parseFormula("p(a)").getFormula(),
+        parseFormula("p(a,b)").getFormula(), parseFormula("q").getFormula(),
+        parseFormula("~p(a)").getFormula(), parseFormula("p(a) & q").getFormula(),
+        parseFormula("p(a) | q").getFormula() };
+    for (int i = 0; i < sorted.length; i++)
+      for (int j = 0; j < sorted.length; j++)
+        assertEquals(Integer.signum(Integer.valueOf(i).compareTo(j)),
+            Integer.signum(sorted[i].compareTo(sorted[j])));
+    assertEquals(0, new Atomic("p", null).compareTo(new Atomic("p", null)));
+  }
+
+  @Test
+  public void emptyArgumentsShouldEqualNone() {
+    List<TptpParserOutput.Term> none = Collections.emptyList();
+    Term constant = new Term(new Symbol("a", false), null);
+    Term empty = new Term(new Symbol("a", false), none);
+    assertEquals(constant, empty);
+    assertEquals(0, constant.compareTo(empty));
+    assertEquals(constant.hashCode(), empty.hashCode());
+    assertEquals("a", empty.toString());
+    Atomic atomic = new Atomic("p", none);
+    assertEquals(new Atomic("p", null), atomic);
+    assertEquals(0, new Atomic("p", null).compareTo(atomic));
+    assertEquals(null, atomic.getArguments());
+  }
+
   private boolean allHashesDiffer(Formula... formulae) {
     Set<Integer> seenHashes = new TreeSet<Integer>();
     for (Formula f : formulae) {
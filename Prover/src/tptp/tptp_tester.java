@@ -1,12 +1,11 @@
 package tptp;
 
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import resolutionprover.PropositionalProver;
 import resolutionprover.Util;
@@ -164,8 +163,7 @@ public class tptp_tester {
   public static void parseAndCheck(String fileName, String includeDir,
       SimpleTptpParserOutput outputManager, LinkedList<TopLevelItem> results,
       int recursionDepth) throws Exception {
-    FileInputStream in = new FileInputStream(fileName);
-    TptpLexer lexer = new TptpLexer(new DataInputStream(in));
+    TptpLexer lexer = new TptpLexer(MappedInputBuffer.map(new File(fileName)));
     TptpParser parser = new TptpParser(lexer);
 
     for (TopLevelItem item = (TopLevelItem) parser.topLevelItem(outputManager); item != null; item = (TopLevelItem) parser
@@ -205,8 +203,6 @@ public class tptp_tester {
     }
     ;
 
-    in.close();
-
   } // parseAndCheck(..)
 
   /**
@@ -627,8 +623,7 @@ public class tptp_tester {
   // //
   // returns the negation of a formula
   public static Formula negateFormula(Formula formula) {
-    Formula newFormula = new Negation(formula);
-    return newFormula;
+    return FormulaFactory.negation(formula);
   }
 
   // *********************************************************************************
@@ -1212,7 +1207,7 @@ public class tptp_tester {
       SimpleTptpParserOutput out) {
     String topsymstring = term1.getTopSymbol().toString();
     int numberOfArgs = term1.getNumberOfArguments();
-    LinkedList<Term> arguments = (LinkedList<Term>) term1.getArguments();
+    Iterable<Term> arguments = term1.getArguments();
     Term res;
     if (numberOfArgs == 0) {
       if (term1.equals(var)) {
@@ -1239,12 +1234,11 @@ public class tptp_tester {
   // Added by Christoph Benzmueller, Sep 2012
   // *********************************************************************************
   // //
-  // create fresh variable names
-  protected static int varCounter = 0;
+  // create fresh variable names, also while parsing in parallel
+  protected static final AtomicInteger varCounter = new AtomicInteger();
 
   public static String freshVariableName() {
-    ++varCounter;
-    return ("V" + varCounter);
+    return ("V" + varCounter.incrementAndGet());
   }
 
   public static Term freshVariableTerm(SimpleTptpParserOutput out) {
@@ -1268,6 +1262,8 @@ public class tptp_tester {
     case Atomic:
       String predicate = ((Atomic) formula).getPredicate();
       Iterable<Term> arguments = ((Atomic) formula).getArguments();
+      if (arguments == null)
+        return formula;
       LinkedList<TptpParserOutput.Term> new_arguments = new LinkedList<TptpParserOutput.Term>();
       for (Term arg : arguments) {
         new_arguments.add(substituteTerm(arg, var, term, out));
@@ -1441,22 +1437,23 @@ public class tptp_tester {
       if (binary.getConnective() == TptpParserOutput.BinaryConnective.Equivalence) {
 
         // actual replacement
-        Binary leftImplication = new Binary(leftResult,
+        Binary leftImplication = FormulaFactory.binary(leftResult,
             TptpParserOutput.BinaryConnective.Implication, rightResult);
-        Binary rightImplication = new Binary(rightResult,
+        Binary rightImplication = FormulaFactory.binary(rightResult,
             TptpParserOutput.BinaryConnective.Implication, leftResult);
-        Binary conjunciton = new Binary(leftImplication,
+        Binary conjunciton = FormulaFactory.binary(leftImplication,
             TptpParserOutput.BinaryConnective.And, rightImplication);
 
         return conjunciton;
       }
 
-      return new Binary(leftResult, binary.getConnective(), rightResult);
+      return FormulaFactory.binary(leftResult, binary.getConnective(),
+          rightResult);
     case Atomic:
       return inFormula; // TODO return a copy
     case Negation:
       // recursively check the argument, negate the result
-      return new Negation(replaceEquivalences(((Negation) inFormula)
+      return FormulaFactory.negation(replaceEquivalences(((Negation) inFormula)
           .getArgument()));
 
     default: